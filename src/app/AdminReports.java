@@ -0,0 +1,36 @@
+package app;
+
+import model.Locker;
+import model.Reservation;
+import util.RowWriter;
+
+import java.io.IOException;
+
+// Admin listings as fixed-width rows, shared by the console, file export and the render
+// benchmark. Each method returns the number of rows written.
+public class AdminReports {
+
+    //  R-0000000000000001 | 0123456789   | WASH_AND_FOLD  | Locker L001  | Code 123456 | PAID   | RM  12.00
+    public static int reservations(Iterable<Reservation> reservations, RowWriter w) throws IOException {
+        int rows = 0;
+        for (Reservation r : reservations) {
+            w.text(r.getId(), 18).text(" | ").text(r.getPhone(), 12).text(" | ")
+                    .text(r.getServiceType(), 14).text(" | Locker ").text(r.getLockerId(), 5)
+                    .text(" | Code ").text(r.getCode(), 7).text(" | ").text(r.getPaymentStatus(), 6)
+                    .text(" | RM ").money(r.getAmount(), 6).newline();
+            rows++;
+        }
+        return rows;
+    }
+
+    //  Locker L001 (SMALL) : AVAILABLE
+    public static int lockerStatus(Iterable<Locker> lockers, RowWriter w) throws IOException {
+        int rows = 0;
+        for (Locker l : lockers) {
+            String status = l.isUnderMaintenance() ? "UNDER MAINTENANCE" : l.isAvailable() ? "AVAILABLE" : "OCCUPIED";
+            w.text("Locker ").text(l.getId()).text(" (").text(l.getSize().name()).text(") : ").text(status).newline();
+            rows++;
+        }
+        return rows;
+    }
+}
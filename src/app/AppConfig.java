@@ -0,0 +1,40 @@
+package app;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+public class AppConfig {
+	public static final String FILE = "locker.properties";
+
+    // locker.properties from the working directory, overridden by -D system properties
+    public static Properties load() {
+        Properties config = new Properties();
+        Path file = Paths.get(FILE);
+        if (Files.exists(file)) {
+            try (InputStream in = new FileInputStream(file.toFile())) {
+                config.load(in);
+            } catch (IOException e) {
+                System.err.println("Error loading " + FILE + ": " + e.getMessage());
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            config.setProperty(name, System.getProperty(name));
+        }
+        return config;
+    }
+
+    // locker.node: this kiosk's ID node, 0 when unset
+    public static int node(Properties config) {
+        String v = config.getProperty("locker.node", "0").trim();
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("locker.node must be a number: " + v);
+        }
+    }
+}
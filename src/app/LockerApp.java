@@ -1,29 +1,97 @@
 package app;
 
 import model.*;
-import repository.DataStore;
+import pricing.PricingEngine;
+import pricing.Quote;
+import pricing.Tariff;
+import metrics.OccupancyRecorder;
+import replication.ReplicationPrimary;
+import repository.AbstractLockerRepository;
+import repository.BatchResult;
+import repository.ConsistencyChecker;
+import repository.ConsistencyReport;
+import repository.DataSnapshot;
+import repository.LockerRepositories;
+import repository.LockerRepository;
 import security.AdminGate;
 import util.CodeGenerator;
 import util.DateTimeHandler;
+import util.LockerIdRange;
+import util.RowWriter;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Function;
 
 public class LockerApp {
+	private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("dd/MM HH:mm");
+
 	private final Scanner sc = new Scanner(System.in);
-    private final DataStore db = new DataStore("data");
+    private final Properties config = AppConfig.load();
+    private final LockerRepository db = LockerRepositories.open(config);
+    private final LockerService service = new LockerService(db, PricingEngine.fromConfig(config),
+            config.getProperty("pricing.site", Tariff.DEFAULT_SITE));
+    private final OccupancyRecorder occupancy = new OccupancyRecorder(db, Clock.systemDefaultZone());
+    // Shared by every listing; showListing() points it at the screen or the export file
+    private final RowWriter rows = new RowWriter(System.out);
     private final AdminGate adminGate = new AdminGate("admin123"); 
-    private static final double LOCKER_FEE_PER_HOUR = 2.0; // RM 2 per hour
 
     public void run() {
+        CodeGenerator.setNode(AppConfig.node(config));
+        if (!config.containsKey("locker.node") && config.getProperty("storage", "").trim().equalsIgnoreCase("jdbc")) {
+            System.out.println("Warning: locker.node is not set; kiosks sharing this database need different nodes.");
+        }
         splash();
+        checkConsistency();
+        ReplicationPrimary primary = startReplication();
         
         home();
         db.saveAll(); 
+        if (primary != null) {
+            try {
+                primary.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping replication: " + e.getMessage());
+            }
+        }
         System.out.println("Goodbye!");
     }
 
+    // startup.check = report (default) | repair | off
+    private void checkConsistency() {
+        String mode = config.getProperty("startup.check", "report").trim().toLowerCase();
+        if (mode.equals("off")) return;
+
+        ConsistencyReport report = ConsistencyChecker.check(db.snapshot());
+        if (report.isClean()) return;
+        System.out.println("\n----- Startup Check -----");
+        System.out.println(report.summary());
+        if (mode.equals("repair")) {
+            List<String> repaired = ConsistencyChecker.repair(db, report);
+            System.out.println("Repaired lockers: " + (repaired.isEmpty() ? "none" : String.join(", ", repaired)));
+        }
+    }
+
+    // Streams every write to read-only replicas when replication.port is configured
+    private ReplicationPrimary startReplication() {
+        String port = config.getProperty("replication.port");
+        if (port == null || port.isBlank() || !(db instanceof AbstractLockerRepository)) return null;
+        try {
+            ReplicationPrimary primary = new ReplicationPrimary((AbstractLockerRepository) db, Integer.parseInt(port.trim()));
+            System.out.println("Replication primary listening on port " + primary.getPort());
+            return primary;
+        } catch (IOException e) {
+            System.err.println("Error starting replication: " + e.getMessage());
+            return null;
+        }
+    }
+
     private void splash() {
         System.out.println("\n===== Laundry Locker Service System =====");
         System.out.println("Reserve locker space for drop-off & pick-up");
@@ -80,42 +148,32 @@ public class LockerApp {
         } while (!phone.matches("\\d{8,11}"));
 
         // show services
-        Service service = chooseService();
-        if (service == null) return;
+        Service svc = chooseService();
+        if (svc == null) return;
+        LockerSize size = chooseSize(LockerSize.forService(svc.getType()));
+        if (size == null) return;
         
-        // find free locker
-        Optional<Locker> free = db.findFirstAvailableLocker();
-        if (free.isEmpty()) {
-            System.out.println("\nNo lockers available now.");
+        Optional<Reservation> or = service.dropOff(phone, svc, size, LocalDateTime.now());
+        if (or.isEmpty()) {
+            System.out.println("\nNo " + size + " or larger lockers available now.");
             return;
         }
-        Locker locker = free.get();
-        
-        // allocate and mark unavailable
-        String code = CodeGenerator.unique6Digits(db.getActiveCodes());
-        String resId = CodeGenerator.reservationId();
-        Reservation r = Reservation.newPending(resId, phone, locker.getId(), code, service);
-        r.setAmount(service.getFee());
-        locker.setAvailable(false);
-        db.saveReservationAndLocker(r, locker);
-
-        System.out.printf("\nLocker unlocked! \nLocker ID: %s | Code: %s\n", locker.getId(), code);
+        Reservation r = or.get();
+
+        System.out.printf("\nLocker unlocked! \nLocker ID: %s | Code: %s\n", r.getLockerId(), r.getCode());
         System.out.printf("[Locker ID and code already sent to phone %s via WhatsApp]\n", phone);
-        
-        r.setDropoffAt(LocalDateTime.now());
-        db.upsertReservation(r);
     }
 
     private Service chooseService() {
     	while (true) {
     		System.out.println("\nService Types:");
-            System.out.println("1) Wash & Fold\t (RM 10.0)");
-            System.out.println("2) Dry Cleaning\t (RM 18.0)");
+            System.out.printf("1) Wash & Fold\t (RM %.1f)%n", service.serviceFee("WASH_AND_FOLD"));
+            System.out.printf("2) Dry Cleaning\t (RM %.1f)%n", service.serviceFee("DRY_CLEANING"));
             System.out.println("0) Cancel");
             String s = ask("Choose: ");
             switch (s) {
-            case "1": return new WashAndFoldService(10.0);
-            case "2": return new DryCleaningService(18.0);
+            case "1": return service.serviceFor("WASH_AND_FOLD");
+            case "2": return service.serviceFor("DRY_CLEANING");
             case "0":
                 System.out.println("\nAction cancelled."); 
                 return null;
@@ -125,6 +183,30 @@ public class LockerApp {
         }
     }
 
+    // Enter keeps the usual size for the service
+    private LockerSize chooseSize(LockerSize usual) {
+    	while (true) {
+    		Map<LockerSize, Integer> free = db.freeCounts();
+    		System.out.println("\nBag Size:");
+    		System.out.printf("1) Small\t (%d free)%n", free.get(LockerSize.SMALL));
+    		System.out.printf("2) Medium\t (%d free)%n", free.get(LockerSize.MEDIUM));
+    		System.out.printf("3) Large\t (%d free)%n", free.get(LockerSize.LARGE));
+    		System.out.println("0) Cancel");
+    		String s = ask("Choose [" + (usual.ordinal() + 1) + "]: ");
+    		switch (s) {
+    		case "": return usual;
+    		case "1": return LockerSize.SMALL;
+    		case "2": return LockerSize.MEDIUM;
+    		case "3": return LockerSize.LARGE;
+    		case "0":
+    			System.out.println("\nAction cancelled.");
+    			return null;
+    		default:
+    			System.out.println("\nInvalid choice. Please try again!");
+    		}
+    	}
+    }
+
     private void payAndPickup() {
         System.out.println("\n----- Pay & Pick-Up -----");
 
@@ -156,7 +238,7 @@ public class LockerApp {
             break; 
         }
 
-        Optional<Reservation> or = db.findActiveByLockerAndCode(lockerId, code);
+        Optional<Reservation> or = service.findActive(lockerId, code);
         if (or.isEmpty()) {
             System.out.println("\nInvalid locker/code or not reserved. Please try again.");
             return;
@@ -169,13 +251,10 @@ public class LockerApp {
         }
 
         LocalDateTime pickupTime = LocalDateTime.now();
-        Duration d = Duration.between(r.getDropoffAt(), pickupTime);
-        long hours = DateTimeHandler.ceilHours(d);
-        double lockerFee = hours * LOCKER_FEE_PER_HOUR;
-        double total = r.getServiceFee() + lockerFee;
+        Quote q = service.quote(r, pickupTime);
 
-        System.out.printf("Service: %s (RM %.2f) + Locker fee: %d hour(s) × RM %.2f = RM %.2f%n",
-                r.getServiceType(), r.getServiceFee(), hours, LOCKER_FEE_PER_HOUR, total);
+        System.out.printf("Service: %s (RM %.2f) + Locker fee: %d hour(s) RM %.2f = RM %.2f%n",
+                r.getServiceType(), q.getServiceFee(), q.getHours(), q.getLockerFee(), q.getTotal());
 
         String pay = ask("Pay now? (y/n): ").trim();
         if (!pay.equalsIgnoreCase("y")) {
@@ -183,21 +262,11 @@ public class LockerApp {
             return;
         }
 
-        r.setPickupAt(pickupTime);
-        r.setAmount(total);
-        r.setPaymentStatus(PaymentStatus.PAID);
-
-        Optional<Locker> ol = db.findLocker(r.getLockerId());
-        if (ol.isEmpty()) {
+        if (!service.payAndPickup(r, pickupTime)) {
             System.out.println("\nLocker not found!");
             return;
         }
-
-        Locker locker = ol.get();
-        locker.setAvailable(true);
         System.out.println("\nLocker unlocked! Please collect your bag.");
-
-        db.completeReservation(r, locker);
         System.out.println("Transaction complete. Thank you!");
     }
     
@@ -227,7 +296,10 @@ public class LockerApp {
             System.out.println("3) List Reservations");
             System.out.println("4) Remark Locker Status");
             System.out.println("5) View All Locker Status");
-            System.out.println("6) Back");
+            System.out.println("6) Bulk Locker Operations");
+            System.out.println("7) End-of-Day Billing");
+            System.out.println("8) Occupancy History");
+            System.out.println("9) Back");
            
             String c = ask("Choose: ");
             switch (c) {
@@ -236,7 +308,10 @@ public class LockerApp {
             case "3" : listReservations(); break;
             case "4" : adminChangeStatus(); break;
             case "5" : adminViewAllLockerStatus(); break;
-            case "6" : return;
+            case "6" : adminBulkMenu(); break;
+            case "7" : adminEndOfDayBilling(); break;
+            case "8" : adminOccupancyHistory(); break;
+            case "9" : return;
             default : System.out.println("\nInvalid input. Please try again!");
             }
         }
@@ -281,16 +356,18 @@ public class LockerApp {
             break;
         }
 
-        Optional<Locker> ol = db.findLocker(id);
+        DataSnapshot view = db.snapshot();
+        Optional<Locker> ol = view.findLocker(id);
         if (ol.isEmpty()) { 
             System.out.println("\nLocker not found."); 
             return; 
         }
 
         Locker l = ol.get();
-        Optional<Reservation> last = db.findLatestForLocker(id);
+        Optional<Reservation> last = view.findLatestForLocker(id);
         System.out.println("\n----- Locker Details -----");
         System.out.println("Locker: " + l.getId());
+        System.out.println("Size: " + l.getSize());
         System.out.println("Availability: " + (l.isAvailable() ? "AVAILABLE" : "UNAVAILABLE"));
         if (last.isPresent()) {
             Reservation r = last.get();
@@ -303,7 +380,7 @@ public class LockerApp {
         } else {
             System.out.println("\nNo active reservation for this locker yet.");
         }
-        System.out.printf("\nTotal Revenue (all lockers): RM %.2f%n", db.getTotalRevenue());
+        System.out.printf("\nTotal Revenue (all lockers): RM %.2f%n", view.getTotalRevenue());
     }
 
     private void listReservations() {
@@ -322,12 +399,10 @@ public class LockerApp {
         	return;
         }
         
-        System.out.println("\n----- Reservations -----");
-        db.getReservations().stream()
-                .sorted(Comparator.comparing(Reservation::getCreatedAt).reversed())
-                .forEach(r -> System.out.printf("%-11s | %-12s | %-14s | Locker %-5s | Code %-7s | %-6s | RM %6.2f%n",
-                        r.getId(), r.getPhone(), r.getServiceType(), r.getLockerId(), r.getCode(),
-                        r.getPaymentStatus(), r.getAmount()));
+        String path = ask("Export to file (Enter to show here): ");
+        List<Reservation> sorted = new ArrayList<>(db.snapshot().getReservations());
+        sorted.sort(Comparator.comparing(Reservation::getCreatedAt).reversed());
+        showListing("Reservations", path, w -> AdminReports.reservations(sorted, w));
     }
 
     private void adminChangeStatus() {
@@ -406,28 +481,125 @@ public class LockerApp {
         System.out.println("\nLocker " + id + " is now back to AVAILABLE.");
     }
     
+    private void adminBulkMenu() {
+            System.out.println("\n----- Bulk Locker Operations -----");
+            System.out.println("1) Unlock Lockers");
+            System.out.println("2) REMARK Maintenance");
+            System.out.println("3) REMOVE Maintenance");
+            System.out.println("4) Back");
+            String c = ask("Choose: ");
+            switch (c) {
+            case "1" : adminBulk("unlock", db::unlockAll); break;
+            case "2" : adminBulk("mark as under maintenance", db::markMaintenance); break;
+            case "3" : adminBulk("return as available", db::removeMaintenance); break;
+            case "4" : return;
+            default : System.out.println("\nInvalid choice. Please try again!");
+            }
+    }
+
+    private void adminBulk(String action, Function<Collection<String>, BatchResult> op) {
+        Set<String> ids;
+        while (true) {
+            String spec = ask("\nLocker IDs to " + action + " (e.g. L001-L010, L015; 0 to cancel): ").trim();
+            if (spec.equals("0")) {
+                System.out.println("\nAction cancelled.");
+                return;
+            }
+            try {
+                ids = LockerIdRange.parse(spec);
+                break;
+            } catch (IllegalArgumentException e) {
+                System.out.println("\n" + e.getMessage() + ". Please try again.");
+            }
+        }
+
+        BatchResult result = op.apply(ids);
+        if (result.getError() != null) {
+            System.out.println("\nError saving data: " + result.getError());
+            System.out.println("No changes were made to: " + String.join(", ", result.getNotSaved()));
+        }
+        System.out.println("\nDone: " + result.getApplied().size() + " of " + ids.size() + " locker(s).");
+        if (!result.getApplied().isEmpty())
+            System.out.println("Applied: " + String.join(", ", result.getApplied()));
+        if (!result.getSkippedOccupied().isEmpty())
+            System.out.println("Skipped (occupied): " + String.join(", ", result.getSkippedOccupied()));
+        if (!result.getSkippedUnchanged().isEmpty())
+            System.out.println("Skipped (already in that state): " + String.join(", ", result.getSkippedUnchanged()));
+        if (!result.getNotFound().isEmpty())
+            System.out.println("Not found: " + String.join(", ", result.getNotFound()));
+    }
+
+    private void adminEndOfDayBilling() {
+        // One snapshot for the quotes and the lookup, so every quote finds its reservation
+        DataSnapshot view = db.snapshot();
+        List<Quote> quotes = service.endOfDayQuotes(view, LocalDateTime.now());
+        Map<String, Reservation> byId = new HashMap<>();
+        for (Reservation r : view.getReservations()) byId.put(r.getId(), r);
+
+        System.out.println("\n----- End-of-Day Billing -----");
+        double outstanding = 0;
+        for (Quote q : quotes) {
+            Reservation r = byId.get(q.getReservationId());
+            System.out.printf("%-18s | Locker %-5s | %-14s | %4d hour(s) | RM %7.2f%n",
+                    q.getReservationId(), r == null ? "-" : r.getLockerId(),
+                    r == null ? "-" : r.getServiceType(), q.getHours(), q.getTotal());
+            outstanding += q.getTotal();
+        }
+        System.out.printf("\nOpen reservations: %d | Outstanding if collected now: RM %.2f%n", quotes.size(), outstanding);
+    }
+
+    private void adminOccupancyHistory() {
+        System.out.println("\n----- Occupancy (last 24 hours) -----");
+        System.out.printf("Now: %d available | %d occupied | %d under maintenance%n",
+                occupancy.getAvailable(), occupancy.getOccupied(), occupancy.getMaintenance());
+
+        OccupancyRecorder.HourSample[] hours = occupancy.hours(24);
+        OccupancyRecorder.HourSample busiest = null;
+        for (OccupancyRecorder.HourSample h : hours) {
+            System.out.printf("%s | avg %5.1f | peak %3d | %s%n", h.hour.format(HOUR_FORMAT),
+                    h.averageOccupied, h.peakOccupied, "#".repeat((int) Math.round(h.averageOccupied)));
+            if (busiest == null || h.peakOccupied > busiest.peakOccupied) busiest = h;
+        }
+        if (busiest == null) {
+            System.out.println("No history recorded yet.");
+        } else {
+            System.out.printf("%nPeak: %d locker(s) occupied at %s%n", busiest.peakOccupied, busiest.peakAt.format(HOUR_FORMAT));
+        }
+    }
+
     private void adminViewAllLockerStatus() {
+        String path = ask("\nExport to file (Enter to show here): ");
+        Collection<Locker> lockers = db.snapshot().getLockers().values();
+        showListing("Locker Status", path, w -> AdminReports.lockerStatus(lockers, w));
+    }
 
-        System.out.println("\n----- Locker Status -----");
-        db.getLockers().values().stream()
-        	.sorted(Comparator.comparingInt(l -> Integer.parseInt(l.getId().substring(1))))
-        	.forEach(locker -> {
-        		String status = "";
-                if (locker.isUnderMaintenance()) {
-                    status = "UNDER MAINTENANCE";
-                } else {
-                    if (locker.isAvailable()) {
-                        status = "AVAILABLE";
-                    } else {
-                        status = "OCCUPIED";
-                    }
-                }
-            
-                System.out.println("Locker " + locker.getId() + " : " + status);
-        	});           
+    private interface Listing {
+        int writeTo(RowWriter w) throws IOException;
     }
-    
-    
+
+    // Long listings go through one buffered writer instead of a printf and a flush per row
+    private void showListing(String title, String path, Listing listing) {
+        if (path.isEmpty()) {
+            System.out.println("\n----- " + title + " -----");
+            try {
+                RowWriter w = rows.target(System.out);
+                listing.writeTo(w);
+                w.flush();
+            } catch (IOException e) {
+                System.err.println("Error printing listing: " + e.getMessage());
+            }
+            return;
+        }
+        try (OutputStream out = new FileOutputStream(path)) {
+            RowWriter w = rows.target(out);
+            int count = listing.writeTo(w);
+            w.flush();
+            System.out.println("\n" + count + " row(s) exported to " + path);
+        } catch (IOException e) {
+            System.err.println("Error exporting listing: " + e.getMessage());
+        }
+    }
+
     private String ask(String msg) { 
     	System.out.print(msg); 
     	return sc.nextLine().trim(); 
@@ -0,0 +1,138 @@
+package app;
+
+import model.*;
+import repository.DataSnapshot;
+import repository.LockerRepository;
+import pricing.PricingEngine;
+import pricing.Quote;
+import pricing.Tariff;
+import util.CodeGenerator;
+import util.IdempotencyCache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Customer transactions without any console I/O, shared by the interactive app and replay mode
+public class LockerService {
+	// Client retries arrive within minutes; keep results well beyond that
+    private static final int IDEMPOTENCY_MAX_ENTRIES = 10_000;
+    private static final Duration IDEMPOTENCY_TTL = Duration.ofHours(1);
+
+    private final LockerRepository db;
+    private final PricingEngine pricing;
+    private final String site;
+    private final IdempotencyCache<Optional<Reservation>> dropOffResults =
+            new IdempotencyCache<>(IDEMPOTENCY_MAX_ENTRIES, IDEMPOTENCY_TTL);
+    private final IdempotencyCache<Boolean> paymentResults =
+            new IdempotencyCache<>(IDEMPOTENCY_MAX_ENTRIES, IDEMPOTENCY_TTL);
+
+    public LockerService(LockerRepository db) {
+        this(db, PricingEngine.builtIn(), Tariff.DEFAULT_SITE);
+    }
+
+    public LockerService(LockerRepository db, PricingEngine pricing, String site) {
+        this.db = db;
+        this.pricing = pricing;
+        this.site = site;
+    }
+
+    public LockerRepository getRepository() {
+        return db;
+    }
+
+    public double serviceFee(String type) {
+        return pricing.serviceFee(site, type);
+    }
+
+    // The service at this site's current fee
+    public Service serviceFor(String type) {
+        return Service.of(type, serviceFee(type));
+    }
+
+    // Same as dropOff(phone, service, size, at), but a repeated idempotency key returns the
+    // reservation (or "no locker") from the first call instead of allocating again. Reusing
+    // a key for a different phone, service or size throws IllegalArgumentException.
+    public Optional<Reservation> dropOff(String idempotencyKey, String phone, Service service, LockerSize size,
+                                         LocalDateTime at) {
+        if (idempotencyKey == null) return dropOff(phone, service, size, at);
+        String request = phone + "|" + service.getType() + "|" + size;
+        return dropOffResults.execute(idempotencyKey, request, () -> dropOff(phone, service, size, at));
+    }
+
+    // Drop-off in the size the service usually needs
+    public Optional<Reservation> dropOff(String phone, Service service, LocalDateTime at) {
+        return dropOff(phone, service, LockerSize.forService(service.getType()), at);
+    }
+
+    // Allocates the best-fitting free locker and records the drop-off; empty when no
+    // locker of that size or larger is free
+    public Optional<Reservation> dropOff(String phone, Service service, LockerSize size, LocalDateTime at) {
+        // Hold the store lock so two kiosks cannot be handed the same locker
+        synchronized (db) {
+            Optional<Locker> free = db.allocateLocker(size);
+            if (free.isEmpty()) return Optional.empty();
+            Locker locker = free.get();
+
+            String code = CodeGenerator.unique6Digits(db.getActiveCodes());
+            String resId = CodeGenerator.reservationId();
+            Reservation r = Reservation.newPending(resId, phone, locker.getId(), code, service);
+            r.setCreatedAt(at);
+            r.setDropoffAt(at);
+            r.setAmount(service.getFee());
+            locker.setAvailable(false);
+            db.saveReservationAndLocker(r, locker);
+            return Optional.of(r);
+        }
+    }
+
+    public Optional<Reservation> findActive(String lockerId, String code) {
+        return db.findActiveByLockerAndCode(lockerId, code);
+    }
+
+    public Quote quote(Reservation r, LocalDateTime pickupAt) {
+        return pricing.quote(site, r, pickupAt);
+    }
+
+    // Every unpaid reservation in the snapshot priced as if collected at the given time
+    public List<Quote> endOfDayQuotes(DataSnapshot view, LocalDateTime at) {
+        return pricing.quoteOpen(site, view.getReservations(), at);
+    }
+
+    // Looks up the unpaid reservation (the latest one in the locker when code is null) and
+    // pays for it. The lookup is inside the idempotent call: on a retry the reservation is
+    // already PAID, so only the cached outcome can answer it without charging again.
+    public boolean pickUp(String idempotencyKey, String lockerId, String code, LocalDateTime pickupAt) {
+        Supplier<Boolean> work = () -> {
+            Optional<Reservation> or = code == null
+                    ? db.findLatestForLocker(lockerId)
+                    : db.findActiveByLockerAndCode(lockerId, code);
+            return or.isPresent() && payAndPickup(or.get(), pickupAt);
+        };
+        if (idempotencyKey == null) return work.get();
+        return paymentResults.execute(idempotencyKey, lockerId + "|" + code, work);
+    }
+
+    // Marks the reservation paid and frees its locker; false when the locker no longer exists
+    public boolean payAndPickup(Reservation r, LocalDateTime pickupAt) {
+        synchronized (db) {
+            Optional<Locker> ol = db.findLocker(r.getLockerId());
+            if (ol.isEmpty()) return false;
+            // A stale retry without a key must not be charged twice; r may be an old copy, so
+            // ask the store whether the reservation is still open
+            if (PaymentStatus.PAID.equalsIgnoreCase(r.getPaymentStatus())) return false;
+            if (db.findActiveByLockerAndCode(r.getLockerId(), r.getCode()).isEmpty()) return false;
+
+            r.setPickupAt(pickupAt);
+            r.setAmount(quote(r, pickupAt).getTotal());
+            r.setPaymentStatus(PaymentStatus.PAID);
+
+            Locker locker = ol.get();
+            locker.setAvailable(true);
+            db.completeReservation(r, locker);
+            return true;
+        }
+    }
+}
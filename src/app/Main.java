@@ -1,8 +1,26 @@
 package app;
 
+import java.util.Arrays;
+
 public class Main {
 
-	public static void main(String[] args) {
-		new LockerApp().run();
+	public static void main(String[] args) throws Exception {
+		if (Arrays.asList(args).contains("--replay")) {
+			ReplayRunner.main(args);
+			return;
+		}
+		if (Arrays.asList(args).contains("--replica")) {
+			ReplicaMonitor.main(args);
+			return;
+		}
+		LockerApp app;
+		try {
+			app = new LockerApp();
+		} catch (IllegalArgumentException | IllegalStateException e) {
+			System.err.println("Error starting: " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+		app.run();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+package app;
+
+import model.Locker;
+import model.LockerSize;
+import repository.DataSnapshot;
+import pricing.PricingEngine;
+import pricing.Tariff;
+import repository.DataStore;
+import repository.InMemoryRepository;
+import repository.LockerRepository;
+import util.LockerIdRange;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+// Non-interactive replay of a command log against an in-memory repository. With --data the
+// folder's lockers and reservations are the starting state; the folder is only read.
+// One command per line, fields separated by whitespace, '#' starts a comment:
+//   2025-09-15T10:00:00 DROPOFF 0123456789 WASH_AND_FOLD [SMALL|MEDIUM|LARGE]
+//   2025-09-15T12:30:00 PICKUP L001 [code]
+//   2025-09-15T13:00:00 MAINTENANCE_ON L010-L012
+//   2025-09-15T14:00:00 MAINTENANCE_OFF L010-L012
+//   2025-09-15T14:05:00 UNLOCK L001,L005
+// DROPOFF and PICKUP accept a trailing "key=<idempotency key>"; a repeated key replays
+// a client retry and must return the first result without doing the work again.
+// DROPOFF without a size uses the service's usual bag size.
+// PICKUP without a code picks up the latest unpaid reservation in that locker, since
+// codes are generated at drop-off and cannot be known when the log is written.
+public class ReplayRunner {
+	private final LockerRepository db;
+    private final LockerService service;
+    private final boolean realTime;
+
+    // Fewest and most arguments after the command, not counting key=
+    private static final Map<String, int[]> ARGUMENTS = Map.of(
+            "DROPOFF", new int[] {2, 3},
+            "PICKUP", new int[] {1, 2},
+            "MAINTENANCE_ON", new int[] {1, 1},
+            "MAINTENANCE_OFF", new int[] {1, 1},
+            "UNLOCK", new int[] {1, 1});
+
+    private final Map<String, Integer> applied = new TreeMap<>();
+    private final Map<String, Integer> rejected = new TreeMap<>();
+
+    // Prices with the given engine and site tariff, so a replay does not depend on which
+    // locker.properties happens to be in the working directory
+    public ReplayRunner(LockerRepository db, PricingEngine pricing, String site, boolean realTime) {
+        this.db = db;
+        this.service = new LockerService(db, pricing, site);
+        this.realTime = realTime;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String log = null;
+        String folder = null;
+        boolean realTime = false;
+        for (int i = 0; i < args.length; i++) {
+            boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+            switch (args[i]) {
+            case "--replay": log = hasValue ? args[++i] : null; break;
+            case "--data": folder = hasValue ? args[++i] : ""; break;
+            case "--realtime": realTime = true; break;
+            default:
+                System.err.println("Unknown option: " + args[i]);
+                log = null;
+                i = args.length;
+            }
+        }
+        if (log == null || "".equals(folder)) {
+            System.err.println("Usage: --replay <command-log> [--data <folder>] [--realtime]");
+            return;
+        }
+        if (folder != null && !new File(folder).isDirectory()) {
+            System.err.println("Data folder not found: " + folder);
+            return;
+        }
+        LockerRepository db = folder == null ? new InMemoryRepository() : readOnlySeed(folder);
+        Properties config = AppConfig.load();
+        new ReplayRunner(db, PricingEngine.fromConfig(config), config.getProperty("pricing.site", Tariff.DEFAULT_SITE), realTime)
+                .run(new File(log));
+    }
+
+    // The folder's state loaded into memory; writes during the replay never reach the files,
+    // so replaying the same log twice starts from, and ends in, the same state
+    private static LockerRepository readOnlySeed(String folder) {
+        return new DataStore(folder) {
+            @Override
+            protected void saveLockers() {
+            }
+
+            @Override
+            protected void saveReservations() {
+            }
+        };
+    }
+
+    public void run(File log) throws IOException {
+        int lines = 0;
+        long started = System.nanoTime();
+        LocalDateTime firstAt = null;
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(log), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines++;
+                int hash = line.indexOf('#');
+                if (hash >= 0) line = line.substring(0, hash);
+                line = line.trim();
+                if (line.isEmpty()) continue;
+
+                String[] f = line.split("\\s+");
+                if (f.length < 2) {
+                    System.err.println("Line " + lines + ": missing command");
+                    count(rejected, "MALFORMED");
+                    continue;
+                }
+
+                String command = f[1].toUpperCase();
+                String arity = checkArguments(command, f);
+                if (arity != null) {
+                    System.err.println("Line " + lines + ": " + arity);
+                    count(rejected, "MALFORMED");
+                    continue;
+                }
+                try {
+                    LocalDateTime at = LocalDateTime.parse(f[0]);
+                    if (firstAt == null) firstAt = at;
+                    if (realTime) waitUntil(started, Duration.between(firstAt, at));
+                    count(execute(command, at, f) ? applied : rejected, command);
+                } catch (RuntimeException e) {
+                    System.err.println("Line " + lines + ": " + e.getMessage());
+                    count(rejected, e instanceof DateTimeParseException ? "MALFORMED" : command);
+                }
+            }
+        }
+
+        long elapsed = System.nanoTime() - started;
+        int total = applied.values().stream().mapToInt(Integer::intValue).sum()
+                + rejected.values().stream().mapToInt(Integer::intValue).sum();
+
+        System.out.println("\n===== Replay Summary =====");
+        System.out.println("Commands: " + total + " (applied " + applied + ", rejected " + rejected + ")");
+        System.out.printf("Elapsed: %.3f s | Throughput: %.0f commands/s%n",
+                elapsed / 1e9, total / Math.max(elapsed / 1e9, 1e-9));
+        System.out.printf("Total Revenue: RM %.2f%n", db.getTotalRevenue());
+        System.out.println("State hash: " + stateHash(db));
+    }
+
+    // Null when the argument count suits the command (or the command is unknown, which
+    // execute() reports); otherwise what is wrong
+    private static String checkArguments(String command, String[] f) {
+        int[] range = ARGUMENTS.get(command);
+        if (range == null) return null;
+        int args = f.length - 2 - (f[f.length - 1].startsWith("key=") ? 1 : 0);
+        if (args >= range[0] && args <= range[1]) return null;
+        String expected = range[0] == range[1] ? String.valueOf(range[0]) : range[0] + " to " + range[1];
+        return command + " takes " + expected + " argument(s), got " + args;
+    }
+
+    private boolean execute(String command, LocalDateTime at, String[] f) {
+        String key = null;
+        if (f[f.length - 1].startsWith("key=")) {
+            key = f[f.length - 1].substring("key=".length());
+            f = Arrays.copyOf(f, f.length - 1);
+        }
+
+        switch (command) {
+        case "DROPOFF":
+            LockerSize size = f.length > 4 ? LockerSize.parse(f[4]) : LockerSize.forService(f[3]);
+            return service.dropOff(key, f[2], service.serviceFor(f[3]), size, at).isPresent();
+        case "PICKUP":
+            return service.pickUp(key, f[2].toUpperCase(), f.length > 3 ? f[3] : null, at);
+        case "MAINTENANCE_ON":
+            return !db.markMaintenance(LockerIdRange.parse(f[2])).getApplied().isEmpty();
+        case "MAINTENANCE_OFF":
+            return !db.removeMaintenance(LockerIdRange.parse(f[2])).getApplied().isEmpty();
+        case "UNLOCK":
+            return !db.unlockAll(LockerIdRange.parse(f[2])).getApplied().isEmpty();
+        default:
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    private void waitUntil(long started, Duration offset) {
+        long sleepNanos = offset.toNanos() - (System.nanoTime() - started);
+        if (sleepNanos <= 0) return;
+        try {
+            Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void count(Map<String, Integer> counts, String command) {
+        counts.merge(command, 1, Integer::sum);
+    }
+
+    // Hash of lockers, reservations and revenue. Reservation IDs and codes are generated
+    // at random or from the clock, so they are left out to keep runs comparable.
+    public static String stateHash(LockerRepository db) {
+        DataSnapshot view = db.snapshot();
+        StringBuilder sb = new StringBuilder();
+        for (Locker l : view.getLockers().values()) {
+            sb.append(l.getId()).append(',').append(l.isAvailable()).append(',')
+              .append(l.isUnderMaintenance()).append('\n');
+        }
+        view.getReservations().stream()
+                .map(r -> r.getPhone() + ',' + r.getLockerId() + ',' + r.getServiceType() + ','
+                        + r.getCreatedAt() + ',' + r.getDropoffAt() + ',' + r.getPickupAt() + ','
+                        + r.getPaymentStatus() + ',' + String.format("%.2f", r.getAmount()) + '\n')
+                .sorted()
+                .forEach(sb::append);
+        sb.append(String.format("%.2f", view.getTotalRevenue()));
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) hex.append(String.format("%02x", digest[i]));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
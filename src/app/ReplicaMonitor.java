@@ -0,0 +1,51 @@
+package app;
+
+import model.Locker;
+import replication.ReplicaRepository;
+import repository.DataSnapshot;
+
+import java.io.IOException;
+
+// Read-only dashboard fed by a replica: java app.Main --replica host:port [seconds]
+// Runs until stopped, reconnecting whenever the primary goes away
+public class ReplicaMonitor {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String target = null;
+        int seconds = 5;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--replica") && i + 1 < args.length) target = args[++i];
+            else if (args[i].matches("\\d+")) seconds = Integer.parseInt(args[i]);
+            else {
+                target = null;  // unknown option: show usage
+                break;
+            }
+        }
+        if (target == null || !target.contains(":")) {
+            System.err.println("Usage: --replica <host:port> [refresh-seconds]");
+            return;
+        }
+        String host = target.substring(0, target.lastIndexOf(':'));
+        int port = Integer.parseInt(target.substring(target.lastIndexOf(':') + 1));
+
+        try (ReplicaRepository replica = new ReplicaRepository(host, port)) {
+            while (true) {
+                if (!replica.isConnected()) {
+                    System.out.println("\nPrimary disconnected, reconnecting... (showing the last state)");
+                }
+                DataSnapshot view = replica.snapshot();
+                int available = 0, occupied = 0, maintenance = 0;
+                for (Locker l : view.getLockers().values()) {
+                    if (l.isUnderMaintenance()) maintenance++;
+                    else if (l.isAvailable()) available++;
+                    else occupied++;
+                }
+                System.out.printf("%nAvailable: %d | Occupied: %d | Under maintenance: %d | Reservations: %d | Revenue: RM %.2f%n",
+                        available, occupied, maintenance, view.getReservations().size(), view.getTotalRevenue());
+                System.out.printf("Replication: applied #%d of #%d | lag %d write(s), %d ms%n",
+                        replica.getAppliedSeq(), replica.getPrimarySeq(), replica.getLagRecords(), replica.getLagMillis());
+                Thread.sleep(seconds * 1000L);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package bench;
+
+import model.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Synthetic reservation history shared by the benchmarks: lockers L001-L020, one drop-off
+// a minute from BASE, every third one dry cleaning and every tenth one still unpaid.
+// Codes are the index, so they are unique; amounts vary to exercise money formatting.
+final class BenchData {
+	static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    private BenchData() {
+    }
+
+    static List<Reservation> reservations(int count, Random rnd) {
+        List<Reservation> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String lockerId = String.format("L%03d", 1 + rnd.nextInt(20));
+            Service service = i % 3 == 0 ? new DryCleaningService(18.0) : new WashAndFoldService(10.0);
+            Reservation r = Reservation.newPending(String.format("R-%016X", i), "0123456789",
+                    lockerId, String.format("%06d", i % 1_000_000), service);
+            r.setCreatedAt(BASE.plusMinutes(i));
+            r.setDropoffAt(BASE.plusMinutes(i));
+            r.setAmount(service.getFee() + 2.0 * rnd.nextInt(200) + (i % 7 == 0 ? 0.5 : 0));
+            if (i % 10 != 0) {
+                r.setPickupAt(BASE.plusMinutes(i + 90));
+                r.setPaymentStatus(PaymentStatus.PAID);
+            }
+            list.add(r);
+        }
+        return list;
+    }
+}
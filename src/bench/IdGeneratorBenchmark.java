@@ -0,0 +1,105 @@
+package bench;
+
+import util.IdGenerator;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+// Uniqueness and throughput of IdGenerator under many threads, against the UUID IDs it
+// replaced. Half of the threads share a generator for node 1 and half one for node 2,
+// so IDs from two kiosks are checked against each other too.
+// Usage: java bench.IdGeneratorBenchmark [threads] [ids per thread]
+// Exits with status 1 if any check fails.
+public class IdGeneratorBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        IdGenerator[] nodes = { new IdGenerator(1), new IdGenerator(2) };
+        long[][] ids = new long[threads][perThread];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            IdGenerator gen = nodes[t % 2];
+            long[] out = ids[t];
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < out.length; i++) out[i] = gen.nextId();
+            });
+            workers[t].start();
+        }
+
+        long from = System.currentTimeMillis();
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) w.join();
+        long nanos = System.nanoTime() - t0;
+        long to = System.currentTimeMillis();
+
+        int failures = 0;
+        long total = (long) threads * perThread;
+        // Sequence overflow borrows milliseconds, so timestamps may run ahead of the clock by
+        // at most one millisecond per 4096 IDs
+        long maxAhead = total / 4096 + 1;
+        for (int t = 0; t < threads; t++) {
+            int node = nodes[t % 2].getNode();
+            for (int i = 0; i < perThread; i++) {
+                long id = ids[t][i];
+                if (i > 0 && id <= ids[t][i - 1]) {
+                    failures += report("thread " + t + " not increasing at " + i);
+                }
+                if (IdGenerator.nodeOf(id) != node) {
+                    failures += report("thread " + t + " node " + IdGenerator.nodeOf(id) + " != " + node);
+                }
+                long ts = IdGenerator.timestampOf(id);
+                if (ts < from || ts > to + maxAhead) {
+                    failures += report("thread " + t + " timestamp " + ts + " outside " + from + ".." + to);
+                }
+                if (failures > 10) break;
+            }
+        }
+
+        long[] all = new long[(int) total];
+        for (int t = 0; t < threads; t++) System.arraycopy(ids[t], 0, all, t * perThread, perThread);
+        Arrays.sort(all);
+        int duplicates = 0;
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) duplicates++;
+        }
+        if (duplicates > 0) failures += report(duplicates + " duplicate ID(s)");
+
+        System.out.printf("IdGenerator : %,d IDs on %d threads in %.1f ms (%,.0f IDs/s), %d duplicates%n",
+                total, threads, nanos / 1e6, total / (nanos / 1e9), duplicates);
+        System.out.printf("UUID        : %,.0f IDs/s%n", uuidRate(threads, Math.max(1, perThread / 10)));
+
+        if (failures > 0) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static int report(String problem) {
+        System.out.println("  " + problem);
+        return 1;
+    }
+
+    private static double uuidRate(int threads, int perThread) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) UUID.randomUUID();
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+        return (double) threads * perThread / ((System.nanoTime() - t0) / 1e9);
+    }
+}
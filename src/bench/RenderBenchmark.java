@@ -0,0 +1,68 @@
+package bench;
+
+import app.AdminReports;
+import model.*;
+import util.RowWriter;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Compares the reservation listing written with printf on an autoflushing PrintStream
+// (how System.out was used) against AdminReports over a RowWriter, both into a file.
+// Usage: java bench.RenderBenchmark [reservations] [rounds]
+public class RenderBenchmark {
+
+    private interface Render {
+        void to(File file) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Reservation> reservations = BenchData.reservations(count, new Random(42));
+        File printfFile = File.createTempFile("render-printf", ".txt");
+        File bufferedFile = File.createTempFile("render-buffered", ".txt");
+        printfFile.deleteOnExit();
+        bufferedFile.deleteOnExit();
+
+        Render printf = file -> {
+            try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file)), true)) {
+                for (Reservation r : reservations) {
+                    out.printf("%-18s | %-12s | %-14s | Locker %-5s | Code %-7s | %-6s | RM %6.2f%n",
+                            r.getId(), r.getPhone(), r.getServiceType(), r.getLockerId(), r.getCode(),
+                            r.getPaymentStatus(), r.getAmount());
+                }
+            }
+        };
+        RowWriter writer = new RowWriter(OutputStream.nullOutputStream());
+        Render buffered = file -> {
+            try (OutputStream out = new FileOutputStream(file)) {
+                RowWriter w = writer.target(out);
+                AdminReports.reservations(reservations, w);
+                w.flush();
+            }
+        };
+
+        System.out.printf("%-8s | %12s | %14s | %10s%n", "Path", "Best (ms)", "Rows/s", "MB/s");
+        run("printf", printf, printfFile, rounds, count);
+        run("buffered", buffered, bufferedFile, rounds, count);
+
+        boolean same = Arrays.equals(Files.readAllBytes(printfFile.toPath()), Files.readAllBytes(bufferedFile.toPath()));
+        System.out.println(same ? "Output identical (" + bufferedFile.length() + " bytes)" : "OUTPUT DIFFERS");
+    }
+
+    private static void run(String name, Render render, File file, int rounds, int count) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long t0 = System.nanoTime();
+            render.to(file);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        System.out.printf("%-8s | %12.1f | %14.0f | %10.1f%n", name, best / 1e6,
+                count / (best / 1e9), file.length() / 1e6 / (best / 1e9));
+    }
+}
@@ -0,0 +1,177 @@
+package bench;
+
+import app.LockerService;
+import app.ReplayRunner;
+import model.LockerSize;
+import model.Reservation;
+import replication.ReplicaRepository;
+import replication.ReplicationPrimary;
+import repository.ConsistencyChecker;
+import repository.DataSnapshot;
+import repository.InMemoryRepository;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs a primary and replicas over loopback and checks that every replica ends up with the
+// primary's state hash. One replica connects before the writers start and one halfway
+// through, so both the live stream and a base state taken under load are covered. While
+// the writers run, every replica snapshot must be consistent: no paid reservation whose
+// locker is still held, revenue equal to the paid amounts. Then a client that never reads
+// must be cut off, and after a primary restart the replicas must reconnect and catch up.
+// Usage: java bench.ReplicationLoopbackCheck [writer threads] [drop-offs per thread]
+// Exits with status 1 if any check fails.
+public class ReplicationLoopbackCheck {
+	private static final long WAIT_MILLIS = 30_000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 750;
+
+        InMemoryRepository db = new InMemoryRepository();
+        LockerService service = new LockerService(db);
+        int failures = 0;
+        ReplicationPrimary primary = new ReplicationPrimary(db, 0);
+        int port = primary.getPort();
+        List<ReplicaRepository> replicas = new CopyOnWriteArrayList<>();
+        try {
+            replicas.add(connect(port));
+            AtomicBoolean writing = new AtomicBoolean(true);
+            AtomicInteger torn = new AtomicInteger();
+            Thread watcher = new Thread(() -> {
+                while (writing.get()) {
+                    for (ReplicaRepository r : replicas) {
+                        String problem = tornRead(r.snapshot());
+                        if (problem != null && torn.getAndIncrement() == 0) report("torn replica snapshot: " + problem);
+                    }
+                }
+            });
+            watcher.start();
+
+            CountDownLatch halfway = new CountDownLatch(threads);
+            Thread[] writers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                writers[t] = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        if (i == perThread / 2) halfway.countDown();
+                        cycle(service, thread, i);
+                    }
+                });
+                writers[t].start();
+            }
+            halfway.await();
+            replicas.add(connect(port));
+            for (Thread w : writers) w.join();
+            writing.set(false);
+            watcher.join();
+            if (torn.get() > 0) failures += report(torn.get() + " torn replica snapshot(s)");
+            failures += compare("after " + threads * perThread + " drop-offs", db, primary, replicas);
+
+            // A replica that stops reading must be dropped once its queue is full
+            Socket stalled = new Socket(InetAddress.getLoopbackAddress(), primary.getPort());
+            try {
+                long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+                while (primary.getReplicaCount() <= replicas.size() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                long from = primary.getHeadSeq();
+                int cycles = 0;
+                while (primary.getReplicaCount() > replicas.size() && System.currentTimeMillis() < deadline) {
+                    cycle(service, threads, cycles++);
+                }
+                if (primary.getReplicaCount() > replicas.size()) {
+                    failures += report("stalled replica still connected after " + (primary.getHeadSeq() - from) + " writes");
+                } else {
+                    System.out.println("Stalled replica disconnected after " + (primary.getHeadSeq() - from) + " writes");
+                }
+            } finally {
+                stalled.close();
+            }
+            failures += compare("with a stalled replica", db, primary, replicas);
+
+            // Restart: writes made while the primary is down arrive with the new base state
+            primary.close();
+            for (ReplicaRepository r : replicas) {
+                while (r.isConnected()) Thread.sleep(10);
+            }
+            for (int i = 0; i < 20; i++) cycle(service, threads + 1, i);
+            primary = new ReplicationPrimary(db, port);
+            for (int i = 20; i < 40; i++) cycle(service, threads + 1, i);
+            failures += compare("after a primary restart", db, primary, replicas);
+        } finally {
+            primary.close();
+            for (ReplicaRepository r : replicas) r.close();
+        }
+
+        if (failures > 0) {
+            System.out.println(failures + " check(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    private static ReplicaRepository connect(int port) throws IOException {
+        return new ReplicaRepository(InetAddress.getLoopbackAddress().getHostAddress(), port);
+    }
+
+    // Null when the snapshot could be a state of the primary between two operations
+    private static String tornRead(DataSnapshot view) {
+        if (!ConsistencyChecker.check(view).isClean()) return ConsistencyChecker.check(view).summary();
+        double paid = view.getReservations().stream()
+                .filter(r -> "PAID".equalsIgnoreCase(r.getPaymentStatus()))
+                .mapToDouble(Reservation::getAmount).sum();
+        if (Math.abs(paid - view.getTotalRevenue()) > 0.005) {
+            return "revenue " + view.getTotalRevenue() + " but paid reservations total " + paid;
+        }
+        return null;
+    }
+
+    // One drop-off and its pickup; the clock moves one minute per cycle and thread
+    private static void cycle(LockerService service, int thread, int i) {
+        LocalDateTime at = LocalDateTime.of(2025, 1, 1, 8, 0).plusMinutes(i * 2L);
+        String phone = String.format("01%08d", thread);
+        LockerSize size = LockerSize.values()[i % LockerSize.values().length];
+        Optional<Reservation> r = service.dropOff(phone, service.serviceFor(i % 3 == 0 ? "DRY_CLEANING" : "WASH_AND_FOLD"), size, at);
+        r.ifPresent(res -> service.pickUp(null, res.getLockerId(), res.getCode(), at.plusMinutes(1)));
+    }
+
+    private static int compare(String when, InMemoryRepository db, ReplicationPrimary primary,
+                               List<ReplicaRepository> replicas) throws InterruptedException {
+        long head = primary.getHeadSeq();
+        String expected = ReplayRunner.stateHash(db);
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        int failures = 0;
+        for (int i = 0; i < replicas.size(); i++) {
+            ReplicaRepository replica = replicas.get(i);
+            // awaitSeq gives up at once while a replica is between connections
+            while (!replica.awaitSeq(head, 100) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            if (replica.getAppliedSeq() < head) {
+                failures += report("replica " + i + " " + when + ": stuck at #" + replica.getAppliedSeq() + " of #" + head);
+                continue;
+            }
+            String actual = ReplayRunner.stateHash(replica);
+            if (!actual.equals(expected)) {
+                failures += report("replica " + i + " " + when + ": hash " + actual + " != " + expected);
+            } else {
+                System.out.println("Replica " + i + " " + when + ": #" + head + ", hash " + actual);
+            }
+        }
+        return failures;
+    }
+
+    private static int report(String message) {
+        System.out.println("FAIL: " + message);
+        return 1;
+    }
+}
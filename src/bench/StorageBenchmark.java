@@ -0,0 +1,97 @@
+package bench;
+
+import app.ReplayRunner;
+import model.*;
+import repository.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Supplier;
+
+// Compares storage backends on save, load and lookup throughput. "Resave" is a second save
+// after paying for 1% of the reservations: the text store rewrites everything, JDBC only
+// the changed rows.
+// Usage: java bench.StorageBenchmark [reservations] [jdbc-url]
+// Without a URL the JDBC run uses a temporary H2 database if the H2 driver is on the
+// classpath (see pom.xml), and is skipped otherwise.
+public class StorageBenchmark {
+	private static final int LOOKUPS = 2_000;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        String jdbcUrl = args.length > 1 ? args[1] : null;
+
+        System.out.printf("%-8s | %12s | %12s | %12s | %14s%n", "Backend", "Save (ms)", "Resave (ms)", "Load (ms)", "Lookups/s");
+        run("memory", count, InMemoryRepository::new);
+
+        File folder = Files.createTempDirectory("locker-bench").toFile();
+        run("text", count, () -> new DataStore(folder.getPath()));
+
+        if (jdbcUrl == null && h2Available()) {
+            jdbcUrl = "jdbc:h2:file:" + new File(folder, "locker").getAbsolutePath();
+        }
+        if (jdbcUrl != null) {
+            String url = jdbcUrl;
+            run("jdbc", count, () -> new JdbcRepository(url, "", ""));
+        } else {
+            System.out.printf("%-8s | skipped (pass a JDBC URL as the second argument)%n", "jdbc");
+        }
+    }
+
+    private static void run(String name, int count, Supplier<LockerRepository> open) {
+        LockerRepository db = open.get();
+        Random rnd = new Random(42);
+        for (Reservation r : BenchData.reservations(count, rnd)) db.upsertReservation(r);
+
+        long t0 = System.nanoTime();
+        db.saveAll();
+        long saveNanos = System.nanoTime() - t0;
+
+        for (int i = 0; i < count / 100; i++) {
+            Optional<Reservation> unpaid = db.findLatestForLocker(String.format("L%03d", 1 + i % 20));
+            if (unpaid.isEmpty()) continue;
+            unpaid.get().setPickupAt(BenchData.BASE.plusDays(30));
+            unpaid.get().setPaymentStatus(PaymentStatus.PAID);
+            db.upsertReservation(unpaid.get());
+        }
+        t0 = System.nanoTime();
+        db.saveAll();
+        long resaveNanos = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        LockerRepository loaded = open.get();
+        long loadNanos = System.nanoTime() - t0;
+        // The in-memory backend persists nothing, so its lookups run on the populated instance
+        if (loaded instanceof InMemoryRepository) {
+            loaded = db;
+        } else if (loaded.getReservations().size() != count || !ReplayRunner.stateHash(loaded).equals(ReplayRunner.stateHash(db))) {
+            System.err.println(name + ": loaded " + loaded.getReservations().size() + " of " + count
+                    + " reservations, state " + (ReplayRunner.stateHash(loaded).equals(ReplayRunner.stateHash(db)) ? "matches" : "differs"));
+        }
+
+        int found = 0;
+        t0 = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            String lockerId = String.format("L%03d", 1 + rnd.nextInt(20));
+            if (loaded.findLocker(lockerId).isPresent()) found++;
+            Optional<Reservation> r = loaded.findActiveByLockerAndCode(lockerId, String.format("%06d", rnd.nextInt(count)));
+            if (r.isPresent()) found++;
+        }
+        long lookupNanos = System.nanoTime() - t0;
+
+        System.out.printf("%-8s | %12.1f | %12.1f | %12.1f | %14.0f   (%d hits)%n", name,
+                saveNanos / 1e6, resaveNanos / 1e6, loadNanos / 1e6, 2 * LOOKUPS / (lookupNanos / 1e9), found);
+    }
+
+    private static boolean h2Available() {
+        try {
+            Class.forName("org.h2.Driver");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package metrics;
+
+import model.Locker;
+import model.Reservation;
+import repository.DataSnapshot;
+import repository.LockerRepository;
+import repository.MutationListener;
+
+import java.time.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Occupancy for the last 24 hours by minute and 7 days by local hour, in fixed rings
+// fed from the repository's write stream
+public class OccupancyRecorder implements MutationListener {
+	public static final int MINUTE_SLOTS = 24 * 60;
+    public static final int HOUR_SLOTS = 7 * 24;
+
+    private static final byte AVAILABLE = 0, OCCUPIED = 1, MAINTENANCE = 2;
+
+    private final Clock clock;
+    private final Map<String, Byte> states = new HashMap<>();
+    private int available, occupied, maintenance;
+
+    // Minute ring: counts at the end of the minute, plus the peak occupancy within it
+    private final long[] minuteStamp = new long[MINUTE_SLOTS];
+    private final int[] minuteAvailable = new int[MINUTE_SLOTS];
+    private final int[] minuteOccupied = new int[MINUTE_SLOTS];
+    private final int[] minuteMaintenance = new int[MINUTE_SLOTS];
+    private final int[] minutePeak = new int[MINUTE_SLOTS];
+
+    // Hour ring, rolled up from closed minutes
+    private final long[] hourStamp = new long[HOUR_SLOTS];
+    private final long[] hourOccupiedSum = new long[HOUR_SLOTS];
+    private final int[] hourMinutes = new int[HOUR_SLOTS];
+    private final int[] hourPeak = new int[HOUR_SLOTS];
+    private final long[] hourPeakMinute = new long[HOUR_SLOTS];
+
+    private long currentMinute = -1;
+
+    public OccupancyRecorder(LockerRepository repo, Clock clock) {
+        this.clock = clock;
+        // Not under our lock: writes arrive holding the repository lock, so this could
+        // deadlock. Lockers already seen here are newer than the snapshot.
+        DataSnapshot base = repo.addListener(this);
+        synchronized (this) {
+            for (Locker l : base.getLockers().values()) {
+                if (!states.containsKey(l.getId())) lockerSaved(l);
+            }
+        }
+    }
+
+    public static class HourSample {
+        public final LocalDateTime hour;
+        public final double averageOccupied;
+        public final int peakOccupied;
+        public final LocalDateTime peakAt;
+
+        HourSample(LocalDateTime hour, double averageOccupied, int peakOccupied, LocalDateTime peakAt) {
+            this.hour = hour;
+            this.averageOccupied = averageOccupied;
+            this.peakOccupied = peakOccupied;
+            this.peakAt = peakAt;
+        }
+    }
+
+    public static class MinuteSample {
+        public final LocalDateTime minute;
+        public final int available;
+        public final int occupied;
+        public final int maintenance;
+        public final int peakOccupied;
+
+        MinuteSample(LocalDateTime minute, int available, int occupied, int maintenance, int peakOccupied) {
+            this.minute = minute;
+            this.available = available;
+            this.occupied = occupied;
+            this.maintenance = maintenance;
+            this.peakOccupied = peakOccupied;
+        }
+    }
+
+    //Write stream
+    @Override
+    public synchronized void lockerSaved(Locker l) {
+        byte next = l.isUnderMaintenance() ? MAINTENANCE : l.isAvailable() ? AVAILABLE : OCCUPIED;
+        Byte prev = states.put(l.getId(), next);
+        if (prev != null && prev == next) return;
+
+        roll(nowMinute());
+        if (prev != null) count(prev, -1);
+        count(next, 1);
+        recordCurrent();
+    }
+
+    @Override
+    public void reservationSaved(Reservation r) {
+    }
+
+    @Override
+    public void revenueChanged(double totalRevenue) {
+    }
+
+    @Override
+    public void committed() {
+    }
+
+    private void count(byte state, int delta) {
+        if (state == AVAILABLE) available += delta;
+        else if (state == OCCUPIED) occupied += delta;
+        else maintenance += delta;
+    }
+
+    //Queries
+    public synchronized int getAvailable() {
+    	return available;
+    }
+    public synchronized int getOccupied() {
+    	return occupied;
+    }
+    public synchronized int getMaintenance() {
+    	return maintenance;
+    }
+
+    // The last n minutes (at most 24 hours), oldest first
+    public synchronized MinuteSample[] minutes(int n) {
+        roll(nowMinute());
+        n = Math.min(n, MINUTE_SLOTS);
+        int count = 0;
+        MinuteSample[] out = new MinuteSample[n];
+        for (long m = currentMinute - n + 1; m <= currentMinute; m++) {
+            int slot = (int) Math.floorMod(m, (long) MINUTE_SLOTS);
+            if (minuteStamp[slot] != m) continue;
+            out[count++] = new MinuteSample(toTime(m), minuteAvailable[slot], minuteOccupied[slot],
+                    minuteMaintenance[slot], minutePeak[slot]);
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    // The last n hours (at most 7 days), oldest first, including the hour in progress
+    public synchronized HourSample[] hours(int n) {
+        roll(nowMinute());
+        n = Math.min(n, HOUR_SLOTS);
+        long currentHour = localHour(currentMinute);
+        int count = 0;
+        HourSample[] out = new HourSample[n];
+        for (long h = currentHour - n + 1; h <= currentHour; h++) {
+            int slot = (int) Math.floorMod(h, (long) HOUR_SLOTS);
+            long sum = hourStamp[slot] == h ? hourOccupiedSum[slot] : 0;
+            int minutes = hourStamp[slot] == h ? hourMinutes[slot] : 0;
+            int peak = hourStamp[slot] == h ? hourPeak[slot] : 0;
+            long peakMinute = hourStamp[slot] == h ? hourPeakMinute[slot] : -1;
+            if (h == currentHour) {
+                // fold in the minute still in progress
+                int ms = (int) Math.floorMod(currentMinute, (long) MINUTE_SLOTS);
+                sum += minuteOccupied[ms];
+                minutes++;
+                if (minutePeak[ms] > peak || peakMinute < 0) {
+                    peak = minutePeak[ms];
+                    peakMinute = currentMinute;
+                }
+            }
+            if (minutes == 0) continue;
+            out[count++] = new HourSample(LocalDateTime.ofEpochSecond(h * 3600, 0, ZoneOffset.UTC),
+                    (double) sum / minutes, peak, toTime(peakMinute));
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    //Ring maintenance
+    private long nowMinute() {
+        return Math.floorDiv(clock.millis(), 60_000L);
+    }
+
+    private void roll(long minute) {
+        if (currentMinute < 0) {
+            startMinute(minute);
+            return;
+        }
+        if (minute <= currentMinute) return;
+
+        closeMinute(currentMinute);
+        // Minutes with no writes keep the counts; older than the hour ring they don't matter
+        long from = Math.max(currentMinute + 1, minute - (long) HOUR_SLOTS * 60);
+        for (long m = from; m < minute; m++) {
+            startMinute(m);
+            closeMinute(m);
+        }
+        startMinute(minute);
+    }
+
+    private void startMinute(long minute) {
+        currentMinute = minute;
+        int slot = (int) Math.floorMod(minute, (long) MINUTE_SLOTS);
+        minuteStamp[slot] = minute;
+        minutePeak[slot] = occupied;
+        recordCurrent();
+    }
+
+    private void recordCurrent() {
+        int slot = (int) Math.floorMod(currentMinute, (long) MINUTE_SLOTS);
+        minuteAvailable[slot] = available;
+        minuteOccupied[slot] = occupied;
+        minuteMaintenance[slot] = maintenance;
+        if (occupied > minutePeak[slot]) minutePeak[slot] = occupied;
+    }
+
+    private void closeMinute(long minute) {
+        int ms = (int) Math.floorMod(minute, (long) MINUTE_SLOTS);
+        long hour = localHour(minute);
+        int hs = (int) Math.floorMod(hour, (long) HOUR_SLOTS);
+        if (hourStamp[hs] != hour) {
+            hourStamp[hs] = hour;
+            hourOccupiedSum[hs] = 0;
+            hourMinutes[hs] = 0;
+            hourPeak[hs] = -1;
+        }
+        hourOccupiedSum[hs] += minuteOccupied[ms];
+        hourMinutes[hs]++;
+        if (minutePeak[ms] > hourPeak[hs]) {
+            hourPeak[hs] = minutePeak[ms];
+            hourPeakMinute[hs] = minute;
+        }
+    }
+
+    // Local hours since the epoch; a repeated hour shares one bucket
+    private long localHour(long epochMinute) {
+        ZoneOffset offset = clock.getZone().getRules().getOffset(Instant.ofEpochSecond(epochMinute * 60));
+        return Math.floorDiv(epochMinute + offset.getTotalSeconds() / 60, 60);
+    }
+
+    private LocalDateTime toTime(long epochMinute) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMinute * 60_000L), clock.getZone());
+    }
+}
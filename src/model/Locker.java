@@ -4,14 +4,24 @@ public class Locker {
 	private final String id;
     private boolean available;
     private boolean underMaintenance;
+    private final LockerSize size;
 
+    // Size not known: stored before size classes. The repository assigns one on load.
     public Locker(String id, boolean available) {
-        this.id = id; this.available = available; this.underMaintenance = false;
+        this(id, available, null);
+    }
+
+    public Locker(String id, boolean available, LockerSize size) {
+        this.id = id; this.available = available; this.underMaintenance = false; this.size = size;
     }
 
     public String getId() {
     	return id;
     }
+    // Null only for a locker loaded from before size classes, until it is assigned one
+    public LockerSize getSize() {
+    	return size;
+    }
     public boolean isAvailable() {
     	return available;
     }
@@ -26,4 +36,16 @@ public class Locker {
     public void setUnderMaintenance(boolean underMaintenance){
         this.underMaintenance = underMaintenance;
     }
+
+    // Detached copy for read-only snapshots
+    public Locker copy() {
+        return withSize(size);
+    }
+
+    // Copy in another size class, same state otherwise
+    public Locker withSize(LockerSize size) {
+        Locker c = new Locker(id, available, size);
+        c.underMaintenance = underMaintenance;
+        return c;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package model;
+
+// Compartment size classes, smallest first
+public enum LockerSize {
+	SMALL, MEDIUM, LARGE;
+
+    // Accepts the full name or its first letter; anything else is an error
+    public static LockerSize parse(String text) {
+        String t = text.trim().toUpperCase();
+        for (LockerSize s : values()) {
+            if (s.name().equals(t) || (t.length() == 1 && s.name().charAt(0) == t.charAt(0))) return s;
+        }
+        throw new IllegalArgumentException("Unknown locker size: " + text);
+    }
+
+    // Size of the locker at position (0-based) in a bank of count lockers: the first 30%
+    // small, up to 80% medium, the rest large, i.e. 6/10/4 for 20. Any bank gets a large one.
+    public static LockerSize forPosition(int position, int count) {
+        if (position < count * 3 / 10) return SMALL;
+        return position < count * 8 / 10 ? MEDIUM : LARGE;
+    }
+
+    // The bag size a service needs by default: dry-cleaning goes on hangers
+    public static LockerSize forService(String serviceType) {
+        return "DRY_CLEANING".equalsIgnoreCase(serviceType) ? LARGE : MEDIUM;
+    }
+}
@@ -25,6 +25,16 @@ public class Reservation {
         return r;
     }
 
+    // Detached copy for read-only snapshots
+    public Reservation copy() {
+        Reservation c = new Reservation();
+        c.id = id; c.phone = phone; c.lockerId = lockerId; c.code = code;
+        c.service = service;
+        c.createdAt = createdAt; c.dropoffAt = dropoffAt; c.pickupAt = pickupAt;
+        c.paymentStatus = paymentStatus; c.amount = amount;
+        return c;
+    }
+
     public String getId() { 
     	return id; 
     }
@@ -3,4 +3,13 @@ package model;
 public interface Service {
 	double getFee();
 	String getType();
-}
+
+	// Rebuilds the concrete service for a stored type name
+	static Service of(String type, double fee) {
+		switch (type.toUpperCase().replace(" ", "_")) {
+			case "DRY_CLEANING": return new DryCleaningService(fee);
+			case "WASH_AND_FOLD": return new WashAndFoldService(fee);
+			default: throw new IllegalArgumentException("Unknown service type: " + type);
+		}
+	}
+}
\ No newline at end of file
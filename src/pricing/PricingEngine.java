@@ -0,0 +1,132 @@
+package pricing;
+
+import model.Reservation;
+import util.DateTimeHandler;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Quotes from per-site tables compiled once from the tariffs. The hourly rates become
+// per-minute prefix sums over the week and the daily cap is folded into per-day and
+// per-week totals, so a quote costs a handful of lookups however long the stay is.
+public class PricingEngine {
+	private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private final Map<String, Table> tables = new HashMap<>();
+    private final Map<String, Map<String, Double>> serviceFees = new HashMap<>();
+
+    private static class Table {
+        final double cap;            // 0 = no daily cap
+        final double[] minutePrefix; // over two weeks, so a day starting late in the week fits
+        final double[] dayPrefix;    // capped cost of whole days, over two weeks
+        final double weekCost;
+
+        Table(Tariff t) {
+            cap = t.getDailyCap();
+            minutePrefix = new double[2 * MINUTES_PER_WEEK + 1];
+            for (int i = 0; i < 2 * MINUTES_PER_WEEK; i++) {
+                int slot = i % MINUTES_PER_WEEK;
+                double rate = t.rateAt(DayOfWeek.of(slot / MINUTES_PER_DAY + 1), slot % MINUTES_PER_DAY / 60);
+                minutePrefix[i + 1] = minutePrefix[i] + rate / 60;
+            }
+            dayPrefix = new double[15];
+            for (int d = 0; d < 14; d++) {
+                int start = (d % 7) * MINUTES_PER_DAY;
+                dayPrefix[d + 1] = dayPrefix[d] + capped(minutePrefix[start + MINUTES_PER_DAY] - minutePrefix[start]);
+            }
+            weekCost = dayPrefix[7];
+        }
+
+        double capped(double dayCost) {
+            return cap > 0 ? Math.min(cap, dayCost) : dayCost;
+        }
+
+        // The billed hours run from the drop-off minute, and each minute is charged at the
+        // rate of the clock hour it falls in: a 07:59 drop-off with peak from 08:00 pays one
+        // off-peak minute and 59 peak ones for its first hour. The cap applies per calendar day.
+        double lockerFee(LocalDateTime start, long hours) {
+            if (hours <= 0) return 0;
+            int dow = start.getDayOfWeek().getValue() - 1;
+            int mod = start.getHour() * 60 + start.getMinute();
+            int slot = dow * MINUTES_PER_DAY + mod;
+            long minutes = hours * 60;
+
+            long first = Math.min(minutes, MINUTES_PER_DAY - mod);
+            double cost = capped(minutePrefix[slot + (int) first] - minutePrefix[slot]);
+            long rest = minutes - first;
+
+            int day = (dow + 1) % 7;
+            long fullDays = rest / MINUTES_PER_DAY;
+            cost += (fullDays / 7) * weekCost;
+            int extraDays = (int) (fullDays % 7);
+            cost += dayPrefix[day + extraDays] - dayPrefix[day];
+            day = (day + extraDays) % 7;
+
+            int last = (int) (rest % MINUTES_PER_DAY);
+            if (last > 0) cost += capped(minutePrefix[day * MINUTES_PER_DAY + last] - minutePrefix[day * MINUTES_PER_DAY]);
+            return Math.round(cost * 100) / 100.0;
+        }
+    }
+
+    public PricingEngine(Map<String, Tariff> tariffs) {
+        if (!tariffs.containsKey(Tariff.DEFAULT_SITE)) {
+            throw new IllegalArgumentException("A \"" + Tariff.DEFAULT_SITE + "\" tariff is required");
+        }
+        tariffs.forEach((site, t) -> {
+            tables.put(site, new Table(t));
+            serviceFees.put(site, new HashMap<>(t.getServiceFees()));
+        });
+    }
+
+    public static PricingEngine builtIn() {
+        return new PricingEngine(Collections.singletonMap(Tariff.DEFAULT_SITE, Tariff.builtIn()));
+    }
+
+    public static PricingEngine fromConfig(Properties config) {
+        Map<String, Tariff> tariffs = new HashMap<>();
+        for (String site : Tariff.sites(config)) {
+            tariffs.put(site, Tariff.fromConfig(config, site));
+        }
+        return new PricingEngine(tariffs);
+    }
+
+    public Set<String> getSites() {
+        return Collections.unmodifiableSet(tables.keySet());
+    }
+
+    public double serviceFee(String site, String serviceType) {
+        Double fee = serviceFees.get(siteOrDefault(site)).get(serviceType.toUpperCase());
+        if (fee == null) throw new IllegalArgumentException("No fee for service type: " + serviceType);
+        return fee;
+    }
+
+    public double lockerFee(String site, LocalDateTime dropoffAt, long hours) {
+        return tables.get(siteOrDefault(site)).lockerFee(dropoffAt, hours);
+    }
+
+    // The service fee is the one agreed at drop-off and stored on the reservation
+    public Quote quote(String site, Reservation r, LocalDateTime pickupAt) {
+        long hours = DateTimeHandler.ceilHours(Duration.between(r.getDropoffAt(), pickupAt));
+        return new Quote(r.getId(), r.getServiceFee(), hours, lockerFee(site, r.getDropoffAt(), hours));
+    }
+
+    // End-of-day billing: prices every unpaid, dropped-off reservation as if collected at
+    // the given time, in one pass
+    public List<Quote> quoteOpen(String site, Collection<Reservation> reservations, LocalDateTime at) {
+        Table table = tables.get(siteOrDefault(site));
+        List<Quote> quotes = new ArrayList<>();
+        for (Reservation r : reservations) {
+            if ("PAID".equalsIgnoreCase(r.getPaymentStatus()) || r.getDropoffAt() == null) continue;
+            long hours = DateTimeHandler.ceilHours(Duration.between(r.getDropoffAt(), at));
+            quotes.add(new Quote(r.getId(), r.getServiceFee(), hours, table.lockerFee(r.getDropoffAt(), hours)));
+        }
+        return quotes;
+    }
+
+    private String siteOrDefault(String site) {
+        return site != null && tables.containsKey(site) ? site : Tariff.DEFAULT_SITE;
+    }
+}
@@ -0,0 +1,31 @@
+package pricing;
+
+public class Quote {
+	private final String reservationId;
+    private final double serviceFee;
+    private final long hours;
+    private final double lockerFee;
+
+    public Quote(String reservationId, double serviceFee, long hours, double lockerFee) {
+        this.reservationId = reservationId;
+        this.serviceFee = serviceFee;
+        this.hours = hours;
+        this.lockerFee = lockerFee;
+    }
+
+    public String getReservationId() {
+    	return reservationId;
+    }
+    public double getServiceFee() {
+    	return serviceFee;
+    }
+    public long getHours() {
+    	return hours;
+    }
+    public double getLockerFee() {
+    	return lockerFee;
+    }
+    public double getTotal() {
+    	return serviceFee + lockerFee;
+    }
+}
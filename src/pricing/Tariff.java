@@ -0,0 +1,127 @@
+package pricing;
+
+import java.time.DayOfWeek;
+import java.util.*;
+
+// Pricing rules for one site, as configured. PricingEngine compiles these into tables.
+//   pricing.<site>.offpeak          hourly locker rate outside peak (RM)
+//   pricing.<site>.peak             hourly locker rate in peak (RM)
+//   pricing.<site>.peak.days        e.g. MON-FRI or SAT,SUN
+//   pricing.<site>.peak.hours       e.g. 08-20 (start inclusive, end exclusive)
+//   pricing.<site>.daily.cap        most locker fee charged per calendar day, 0 = no cap
+//   pricing.<site>.service.<TYPE>   service fee, e.g. service.DRY_CLEANING=18.0
+// Keys missing for a site fall back to pricing.default.*, then to the built-in rates.
+public class Tariff {
+	public static final String DEFAULT_SITE = "default";
+
+    private final double offPeakRate;
+    private final double peakRate;
+    private final Set<DayOfWeek> peakDays;
+    private final int peakFrom;
+    private final int peakTo;
+    private final double dailyCap;
+    private final Map<String, Double> serviceFees;
+
+    public Tariff(double offPeakRate, double peakRate, Set<DayOfWeek> peakDays, int peakFrom, int peakTo,
+                  double dailyCap, Map<String, Double> serviceFees) {
+        if (peakFrom < 0 || peakTo > 24 || peakFrom > peakTo) {
+            throw new IllegalArgumentException("Peak hours must be within 00-24: " + peakFrom + "-" + peakTo);
+        }
+        this.offPeakRate = offPeakRate;
+        this.peakRate = peakRate;
+        this.peakDays = peakDays.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(peakDays);
+        this.peakFrom = peakFrom;
+        this.peakTo = peakTo;
+        this.dailyCap = dailyCap;
+        this.serviceFees = new HashMap<>(serviceFees);
+    }
+
+    // RM 2 per hour around the clock, no cap, Wash & Fold RM 10, Dry Cleaning RM 18
+    public static Tariff builtIn() {
+        Map<String, Double> fees = new HashMap<>();
+        fees.put("WASH_AND_FOLD", 10.0);
+        fees.put("DRY_CLEANING", 18.0);
+        return new Tariff(2.0, 2.0, EnumSet.noneOf(DayOfWeek.class), 0, 0, 0, fees);
+    }
+
+    public static Tariff fromConfig(Properties config, String site) {
+        Tariff base = site.equals(DEFAULT_SITE) ? builtIn() : fromConfig(config, DEFAULT_SITE);
+        String prefix = "pricing." + site + ".";
+
+        Map<String, Double> fees = new HashMap<>(base.serviceFees);
+        for (String key : config.stringPropertyNames()) {
+            if (key.startsWith(prefix + "service.")) {
+                fees.put(key.substring((prefix + "service.").length()).toUpperCase(), Double.parseDouble(config.getProperty(key).trim()));
+            }
+        }
+
+        Set<DayOfWeek> days = base.peakDays;
+        String dayText = config.getProperty(prefix + "peak.days");
+        if (dayText != null) days = parseDays(dayText);
+
+        int from = base.peakFrom, to = base.peakTo;
+        String hourText = config.getProperty(prefix + "peak.hours");
+        if (hourText != null) {
+            String[] ends = hourText.trim().split("-");
+            from = Integer.parseInt(ends[0].trim());
+            to = Integer.parseInt(ends[1].trim());
+        }
+
+        return new Tariff(number(config, prefix + "offpeak", base.offPeakRate),
+                number(config, prefix + "peak", base.peakRate),
+                days, from, to, number(config, prefix + "daily.cap", base.dailyCap), fees);
+    }
+
+    // Sites named anywhere in pricing.<site>.* keys
+    public static Set<String> sites(Properties config) {
+        Set<String> sites = new TreeSet<>();
+        sites.add(DEFAULT_SITE);
+        for (String key : config.stringPropertyNames()) {
+            if (key.startsWith("pricing.") && key.indexOf('.', "pricing.".length()) > 0) {
+                sites.add(key.substring("pricing.".length(), key.indexOf('.', "pricing.".length())));
+            }
+        }
+        return sites;
+    }
+
+    public double rateAt(DayOfWeek day, int hour) {
+        return peakDays.contains(day) && hour >= peakFrom && hour < peakTo ? peakRate : offPeakRate;
+    }
+
+    public double getDailyCap() {
+    	return dailyCap;
+    }
+
+    public Map<String, Double> getServiceFees() {
+    	return Collections.unmodifiableMap(serviceFees);
+    }
+
+    private static double number(Properties config, String key, double fallback) {
+        String v = config.getProperty(key);
+        return v == null || v.isBlank() ? fallback : Double.parseDouble(v.trim());
+    }
+
+    private static Set<DayOfWeek> parseDays(String text) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String part : text.toUpperCase().split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) continue;
+            String[] ends = part.split("-");
+            DayOfWeek from = day(ends[0]);
+            DayOfWeek to = ends.length > 1 ? day(ends[1]) : from;
+            for (DayOfWeek d = from; ; d = d.plus(1)) {
+                days.add(d);
+                if (d == to) break;
+            }
+        }
+        return days;
+    }
+
+    private static DayOfWeek day(String abbrev) {
+        String a = abbrev.trim();
+        for (DayOfWeek d : DayOfWeek.values()) {
+            if (d.name().startsWith(a) && a.length() >= 3) return d;
+        }
+        throw new IllegalArgumentException("Unknown day: " + abbrev);
+    }
+}
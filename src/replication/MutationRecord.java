@@ -0,0 +1,116 @@
+package replication;
+
+import model.Locker;
+import model.LockerSize;
+import model.Reservation;
+import model.Service;
+
+import java.time.LocalDateTime;
+
+// One line of the replication log. Fields are tab-separated and an empty field is null:
+//   L  seq millis  id available underMaintenance size
+//   R  seq millis  id phone lockerId code service fee createdAt dropoffAt pickupAt payment amount
+//   V  seq millis  totalRevenue
+//   C  seq millis                                     (end of one repository operation)
+//   H  seq millis                                     (heartbeat: primary head, no change)
+// seq is the primary's write counter and millis its clock when the write happened.
+// Replicas apply the records of one operation together, at its C (or the next H).
+public class MutationRecord {
+	public static final char LOCKER = 'L';
+    public static final char RESERVATION = 'R';
+    public static final char REVENUE = 'V';
+    public static final char COMMIT = 'C';
+    public static final char HEARTBEAT = 'H';
+
+    private final char type;
+    private final long seq;
+    private final long millis;
+    private final String[] fields;
+
+    private MutationRecord(char type, long seq, long millis, String[] fields) {
+        this.type = type;
+        this.seq = seq;
+        this.millis = millis;
+        this.fields = fields;
+    }
+
+    public char getType() {
+    	return type;
+    }
+    public long getSeq() {
+    	return seq;
+    }
+    public long getMillis() {
+    	return millis;
+    }
+
+    public static String encode(Locker l, long seq, long millis) {
+        return join(LOCKER, seq, millis, l.getId(), String.valueOf(l.isAvailable()),
+                String.valueOf(l.isUnderMaintenance()), l.getSize() == null ? null : l.getSize().name());
+    }
+
+    public static String encode(Reservation r, long seq, long millis) {
+        return join(RESERVATION, seq, millis, r.getId(), r.getPhone(), r.getLockerId(), r.getCode(),
+                r.getServiceType(), String.valueOf(r.getServiceFee()), text(r.getCreatedAt()),
+                text(r.getDropoffAt()), text(r.getPickupAt()), r.getPaymentStatus(), String.valueOf(r.getAmount()));
+    }
+
+    public static String encodeRevenue(double totalRevenue, long seq, long millis) {
+        return join(REVENUE, seq, millis, String.valueOf(totalRevenue));
+    }
+
+    public static String encodeCommit(long seq, long millis) {
+        return join(COMMIT, seq, millis);
+    }
+
+    public static String encodeHeartbeat(long seq, long millis) {
+        return join(HEARTBEAT, seq, millis);
+    }
+
+    public static MutationRecord decode(String line) {
+        String[] parts = line.split("\t", -1);
+        if (parts.length < 3 || parts[0].length() != 1) {
+            throw new IllegalArgumentException("Malformed replication record: " + line);
+        }
+        String[] fields = new String[parts.length - 3];
+        System.arraycopy(parts, 3, fields, 0, fields.length);
+        return new MutationRecord(parts[0].charAt(0), Long.parseLong(parts[1]), Long.parseLong(parts[2]), fields);
+    }
+
+    public Locker toLocker() {
+        // Primaries from before size classes send no size; the replica keeps or assigns one
+        LockerSize size = fields.length > 3 && !fields[3].isEmpty() ? LockerSize.parse(fields[3]) : null;
+        Locker l = new Locker(fields[0], Boolean.parseBoolean(fields[1]), size);
+        l.setUnderMaintenance(Boolean.parseBoolean(fields[2]));
+        return l;
+    }
+
+    public Reservation toReservation() {
+        Service service = Service.of(fields[4], Double.parseDouble(fields[5]));
+        Reservation r = Reservation.newPending(fields[0], fields[1], fields[2], fields[3], service);
+        r.setCreatedAt(time(fields[6]));
+        r.setDropoffAt(time(fields[7]));
+        r.setPickupAt(time(fields[8]));
+        r.setPaymentStatus(fields[9]);
+        r.setAmount(Double.parseDouble(fields[10]));
+        return r;
+    }
+
+    public double toRevenue() {
+        return Double.parseDouble(fields[0]);
+    }
+
+    private static String join(char type, long seq, long millis, String... fields) {
+        StringBuilder sb = new StringBuilder().append(type).append('\t').append(seq).append('\t').append(millis);
+        for (String f : fields) sb.append('\t').append(f == null ? "" : f);
+        return sb.toString();
+    }
+
+    private static String text(LocalDateTime t) {
+        return t == null ? null : t.toString();
+    }
+
+    private static LocalDateTime time(String s) {
+        return s.isEmpty() ? null : LocalDateTime.parse(s);
+    }
+}
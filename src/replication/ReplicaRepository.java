@@ -0,0 +1,354 @@
+package replication;
+
+import model.Locker;
+import model.LockerSize;
+import model.Reservation;
+import repository.*;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Read-only copy of a primary's repository, kept current from its replication stream.
+// Serves the query side of LockerRepository; every write throws. Entities handed out are
+// frozen copies, since the stream thread keeps writing to the store underneath.
+public class ReplicaRepository implements LockerRepository, Closeable {
+	private final Store store = new Store();
+    private static final long RETRY_MILLIS = 1000;
+
+    private final String host;
+    private final int port;
+    private volatile Socket socket;
+    private volatile boolean closed;
+
+    private final Object progress = new Object();
+    private volatile long appliedSeq = -1;
+    private volatile long primarySeq = -1;
+    private volatile long lastAppliedMillis;  // primary clock of the last applied write
+    private volatile long lastContactMillis;  // local clock of the last record received
+    private volatile boolean connected;
+    private boolean synced;                   // base state received; guarded by progress
+
+    // Records of the operation in progress, applied together at its end
+    private final List<MutationRecord> pending = new ArrayList<>();
+
+    // The first connection must succeed; after that a lost stream is retried every
+    // second, keeping the last state until the new base state is complete
+    public ReplicaRepository(String host, int port) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.socket = new Socket(host, port);
+        this.connected = true;
+        Thread reader = new Thread(this::readLoop, "replica-" + host + ":" + port);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    //Replication progress
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    public long getPrimarySeq() {
+        return primarySeq;
+    }
+
+    // Writes the primary has made that this replica has not applied yet
+    public long getLagRecords() {
+        return Math.max(0, primarySeq - appliedSeq);
+    }
+
+    // How far behind the data is: 0 when caught up, otherwise the age of the newest
+    // applied write by the primary's clock (exact on loopback, where the clocks agree)
+    public long getLagMillis() {
+        if (getLagRecords() == 0) return 0;
+        return Math.max(0, System.currentTimeMillis() - lastAppliedMillis);
+    }
+
+    public long getMillisSinceContact() {
+        return System.currentTimeMillis() - lastContactMillis;
+    }
+
+    // Waits until the primary write numbered seq has been applied; false on timeout or
+    // while disconnected
+    public boolean awaitSeq(long seq, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (progress) {
+            while (appliedSeq < seq) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0 || !connected) return false;
+                progress.wait(wait);
+            }
+        }
+        return true;
+    }
+
+    private void readLoop() {
+        Socket s = socket;
+        while (s != null) {
+            stream(s);
+            s = closed ? null : reconnect();
+            socket = s;
+            if (s != null && closed) close(s);
+        }
+    }
+
+    private void stream(Socket s) {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                apply(MutationRecord.decode(line));
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!closed) System.err.println("Replication stream failed: " + e.getMessage());
+        } finally {
+            // Sequence numbers belong to one stream: the primary may come back restarted
+            connected = false;
+            pending.clear();
+            primarySeq = -1;
+            synchronized (progress) {
+                appliedSeq = -1;
+                synced = false;
+                progress.notifyAll();
+            }
+        }
+    }
+
+    // Null once closed
+    private Socket reconnect() {
+        while (!closed) {
+            try {
+                Thread.sleep(RETRY_MILLIS);
+                Socket s = new Socket(host, port);
+                connected = true;
+                return s;
+            } catch (IOException e) {
+                // primary still down; try again
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void apply(MutationRecord rec) {
+        lastContactMillis = System.currentTimeMillis();
+        primarySeq = Math.max(primarySeq, rec.getSeq());
+        switch (rec.getType()) {
+            case MutationRecord.LOCKER:
+            case MutationRecord.RESERVATION:
+            case MutationRecord.REVENUE:
+                pending.add(rec);
+                return;
+            case MutationRecord.COMMIT:
+            case MutationRecord.HEARTBEAT:
+                break;
+            default: throw new IllegalArgumentException("Unknown replication record type: " + rec.getType());
+        }
+
+        synchronized (progress) {
+            // The base state ends with a heartbeat carrying the head it was taken at; until
+            // then nothing counts as applied. After that, each operation counts at its end.
+            if (!synced) {
+                if (rec.getType() == MutationRecord.HEARTBEAT) {
+                    applyPending();
+                    appliedSeq = rec.getSeq();
+                    synced = true;
+                }
+            } else if (!pending.isEmpty()) {
+                MutationRecord last = pending.get(pending.size() - 1);
+                applyPending();
+                appliedSeq = last.getSeq();
+                lastAppliedMillis = last.getMillis();
+            }
+            progress.notifyAll();
+        }
+    }
+
+    // Holds the store lock for the whole operation, so no query or snapshot sees part of it
+    private void applyPending() {
+        synchronized (store) {
+            for (MutationRecord rec : pending) {
+                switch (rec.getType()) {
+                    case MutationRecord.LOCKER: applyLocker(rec.toLocker()); break;
+                    case MutationRecord.RESERVATION: store.upsertReservation(rec.toReservation()); break;
+                    default: store.replaceRevenue(rec.toRevenue());
+                }
+            }
+            store.sizeLegacyLockers();
+        }
+        pending.clear();
+    }
+
+    // A primary from before size classes sends lockers without a size: keep the one this
+    // replica already gave the locker; new ones are sized at the end of the operation
+    private void applyLocker(Locker received) {
+        Locker l = received.getSize() != null ? received
+                : store.findLocker(received.getId()).map(known -> received.withSize(known.getSize())).orElse(received);
+        store.saveLocker(l);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Socket s = socket;
+        if (s != null) close(s);
+    }
+
+    private static void close(Socket s) {
+        try {
+            s.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    //Queries
+    @Override
+    public double getTotalRevenue() {
+        return store.getTotalRevenue();
+    }
+
+    @Override
+    public DataSnapshot snapshot() {
+        return store.snapshot();
+    }
+
+    @Override
+    public DataSnapshot addListener(MutationListener listener) {
+        return store.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(MutationListener listener) {
+        store.removeListener(listener);
+    }
+
+    @Override
+    public Collection<Reservation> getReservations() {
+        return store.snapshot().getReservations();
+    }
+
+    @Override
+    public Map<String, Locker> getLockers() {
+        return store.snapshot().getLockers();
+    }
+
+    @Override
+    public Optional<Locker> findLocker(String id) {
+        return store.snapshot().findLocker(id);
+    }
+
+    // Only the ID is read from the store's own locker; the caller gets the frozen copy
+    @Override
+    public Optional<Locker> allocateLocker(LockerSize size) {
+        DataSnapshot view = store.snapshot();
+        return store.allocateLocker(size).flatMap(l -> view.findLocker(l.getId()));
+    }
+
+    @Override
+    public Map<LockerSize, Integer> freeCounts() {
+        return store.freeCounts();
+    }
+
+    @Override
+    public Set<String> getActiveCodes() {
+        return store.getActiveCodes();
+    }
+
+    @Override
+    public Optional<Reservation> findActiveByLockerAndCode(String lockerId, String code) {
+        return store.findActiveByLockerAndCode(lockerId, code);
+    }
+
+    @Override
+    public Optional<Reservation> findLatestForLocker(String lockerId) {
+        return store.findLatestForLocker(lockerId);
+    }
+
+    //Writes belong on the primary
+    @Override
+    public void loadAll() {
+        throw readOnly();
+    }
+
+    @Override
+    public void saveAll() {
+        throw readOnly();
+    }
+
+    @Override
+    public void addRevenue(double amount) {
+        throw readOnly();
+    }
+
+    @Override
+    public void saveLocker(Locker l) {
+        throw readOnly();
+    }
+
+    @Override
+    public void saveReservationAndLocker(Reservation r, Locker l) {
+        throw readOnly();
+    }
+
+    @Override
+    public void upsertReservation(Reservation r) {
+        throw readOnly();
+    }
+
+    @Override
+    public void completeReservation(Reservation r, Locker l) {
+        throw readOnly();
+    }
+
+    @Override
+    public BatchResult markMaintenance(Collection<String> ids) {
+        throw readOnly();
+    }
+
+    @Override
+    public BatchResult removeMaintenance(Collection<String> ids) {
+        throw readOnly();
+    }
+
+    @Override
+    public BatchResult unlockAll(Collection<String> ids) {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Replica is read-only; send writes to the primary");
+    }
+
+    // Holds the replicated state; never loads or saves anything itself
+    private static class Store extends AbstractLockerRepository {
+        void replaceRevenue(double total) {
+            setTotalRevenue(total);
+        }
+
+        void sizeLegacyLockers() {
+            assignMissingSizes();
+        }
+
+        @Override
+        protected void loadLockers() {
+        }
+
+        @Override
+        protected void loadReservations() {
+        }
+
+        @Override
+        protected void saveLockers() {
+        }
+
+        @Override
+        protected void saveReservations() {
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package replication;
+
+import model.Locker;
+import model.Reservation;
+import repository.AbstractLockerRepository;
+import repository.DataSnapshot;
+import repository.MutationListener;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Ships every write of a repository to connected replicas, in commit order. A new
+// replica first gets the full current state, then the live stream; a heartbeat every
+// second tells replicas the primary's head so they can work out their lag.
+// A replica that falls more than QUEUE_LIMIT records behind is disconnected rather than
+// buffered without end; it reconnects and starts again from a fresh base state.
+public class ReplicationPrimary implements MutationListener, Closeable {
+	private static final long HEARTBEAT_MILLIS = 1000;
+    static final int QUEUE_LIMIT = 100_000;
+
+    private final AbstractLockerRepository repo;
+    private final ServerSocket server;
+    private final List<ReplicaLink> links = new CopyOnWriteArrayList<>();
+    private volatile long seq = 0; // written only under the repository lock
+    private volatile boolean closed;
+
+    // Listens on the loopback interface; port 0 picks a free port
+    public ReplicationPrimary(AbstractLockerRepository repo, int port) throws IOException {
+        this.repo = repo;
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        repo.addListener(this);
+        daemon("replication-accept", this::acceptLoop).start();
+        daemon("replication-heartbeat", this::heartbeatLoop).start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public long getHeadSeq() {
+        return seq;
+    }
+
+    public int getReplicaCount() {
+        return links.size();
+    }
+
+    //Mutation stream, called under the repository lock
+    @Override
+    public void lockerSaved(Locker l) {
+        publish(MutationRecord.encode(l, ++seq, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void reservationSaved(Reservation r) {
+        publish(MutationRecord.encode(r, ++seq, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void revenueChanged(double totalRevenue) {
+        publish(MutationRecord.encodeRevenue(totalRevenue, ++seq, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void committed() {
+        publish(MutationRecord.encodeCommit(seq, System.currentTimeMillis()));
+    }
+
+    private void publish(String record) {
+        for (ReplicaLink link : links) {
+            if (!link.queue.offer(record)) link.overflow();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                ReplicaLink link;
+                // Holding the repository lock means no write can land between the base
+                // state and the first streamed record. The snapshot costs nothing to take;
+                // the send thread writes it out before anything queued.
+                synchronized (repo) {
+                    link = new ReplicaLink(socket, repo.snapshot(), seq);
+                    links.add(link);
+                }
+                daemon("replication-" + socket.getRemoteSocketAddress(), link::sendLoop).start();
+            } catch (IOException e) {
+                if (!closed) System.err.println("Replication accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void heartbeatLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(HEARTBEAT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Under the lock so a heartbeat never lands inside an operation's records
+            synchronized (repo) {
+                publish(MutationRecord.encodeHeartbeat(seq, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        repo.removeListener(this);
+        server.close();
+        for (ReplicaLink link : links) link.close();
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread t = new Thread(task, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    private class ReplicaLink {
+        final Socket socket;
+        final BlockingQueue<String> queue = new LinkedBlockingQueue<>(QUEUE_LIMIT);
+        private DataSnapshot base;  // sent first, then dropped
+        private final long head;
+
+        ReplicaLink(Socket socket, DataSnapshot base, long head) {
+            this.socket = socket;
+            this.base = base;
+            this.head = head;
+        }
+
+        // Called under the repository lock when the replica cannot keep up
+        void overflow() {
+            System.err.println("Error replicating to " + socket.getRemoteSocketAddress()
+                    + ": more than " + QUEUE_LIMIT + " writes behind, disconnecting");
+            close();
+            queue.clear();
+        }
+
+        private void sendBase(Writer out) throws IOException {
+            long now = System.currentTimeMillis();
+            for (Locker l : base.getLockers().values()) writeLine(out, MutationRecord.encode(l, head, now));
+            for (Reservation r : base.getReservations()) writeLine(out, MutationRecord.encode(r, head, now));
+            writeLine(out, MutationRecord.encodeRevenue(base.getTotalRevenue(), head, now));
+            writeLine(out, MutationRecord.encodeHeartbeat(head, now));
+            out.flush();
+            base = null;
+        }
+
+        private void writeLine(Writer out, String record) throws IOException {
+            out.write(record);
+            out.write('\n');
+        }
+
+        void sendLoop() {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+                sendBase(out);
+                while (!closed && !socket.isClosed()) {
+                    // Polls so a link closed on overflow notices even with nothing queued
+                    String record = queue.poll(HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (record == null) continue;
+                    writeLine(out, record);
+                    // Batch whatever has queued up meanwhile into one flush
+                    if (queue.isEmpty()) out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // replica went away; if it connects again it starts from a fresh base state
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            links.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
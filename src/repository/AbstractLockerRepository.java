@@ -0,0 +1,418 @@
+package repository;
+
+import model.*;
+
+import java.io.IOException;
+import java.util.*;
+
+// All queries are answered from memory; subclasses only load and write back
+public abstract class AbstractLockerRepository implements LockerRepository {
+	protected static final Comparator<String> BY_LOCKER_NUMBER = Comparator.comparingInt(
+    	id -> Integer.parseInt(id.substring(1))
+    );
+
+    protected final Map<String, Locker> lockers = new TreeMap<>(BY_LOCKER_NUMBER);
+    protected double totalRevenue = 0.0;
+
+    //Frozen copies as of the last write; snapshots share them, lookups hand out copies
+    private PersistentMap<String, Locker> frozenLockers = PersistentMap.empty(BY_LOCKER_NUMBER);
+    private PersistentMap<String, Reservation> frozenReservations = PersistentMap.empty(Comparator.naturalOrder());
+    private long version = 0;
+    private DataSnapshot snapshot;
+    //Listeners are called under the repository lock
+    private final List<MutationListener> listeners = new ArrayList<>();
+
+    //Unpaid reservations by upper-case locker ID; may hold empty lists
+    private PersistentMap<String, List<Reservation>> activeByLocker = PersistentMap.empty(Comparator.naturalOrder());
+
+    //Free lockers per size, idle longest first
+    private final Map<LockerSize, Set<String>> freePools = new EnumMap<>(LockerSize.class);
+    {
+        for (LockerSize size : LockerSize.values()) freePools.put(size, new LinkedHashSet<>());
+    }
+
+    //Written since the last save, see tracksChanges()
+    private final Set<String> changedLockerIds = new LinkedHashSet<>();
+    private final Set<String> changedReservationIds = new LinkedHashSet<>();
+    private final Set<String> addedReservationIds = new HashSet<>();
+
+    protected abstract void loadLockers() throws IOException;
+    protected abstract void loadReservations() throws IOException;
+    protected abstract void saveLockers() throws IOException;
+    protected abstract void saveReservations() throws IOException;
+
+    // True when the save hooks use changedLockers() / changedReservations()
+    protected boolean tracksChanges() {
+        return false;
+    }
+
+    // Lockers and reservations written since the last successful save of each
+    protected Collection<Locker> changedLockers() {
+        List<Locker> changed = new ArrayList<>(changedLockerIds.size());
+        for (String id : changedLockerIds) changed.add(lockers.get(id));
+        return changed;
+    }
+
+    protected Collection<Reservation> changedReservations() {
+        List<Reservation> changed = new ArrayList<>(changedReservationIds.size());
+        for (String id : changedReservationIds) changed.add(frozenReservations.get(id));
+        return changed;
+    }
+
+    // New since the last save: insert it, never overwrite a row
+    protected boolean isAdded(String reservationId) {
+        return addedReservationIds.contains(reservationId);
+    }
+
+    private void writeLockers() throws IOException {
+        saveLockers();
+        changedLockerIds.clear();
+    }
+
+    private void writeReservations() throws IOException {
+        saveReservations();
+        changedReservationIds.clear();
+        addedReservationIds.clear();
+    }
+
+    @Override
+    public synchronized void loadAll() throws IOException {
+        loadLockers();
+        //Initialize sample lockers: 6 small, 10 medium, 4 large
+        if (lockers.isEmpty()) {
+            for (int i = 1; i <= 20; i++) {
+                String id = "L" + String.format("%03d", i);
+                lockers.put(id, new Locker(id, true, LockerSize.forPosition(i - 1, 20)));
+                if (tracksChanges()) changedLockerIds.add(id);
+            }
+            writeLockers();
+        } else if (assignMissingSizes() > 0) {
+            writeLockers();
+        }
+
+        loadReservations();
+
+        lockers.values().forEach(this::freeze);
+        committed();
+        // What was just loaded is what is stored
+        changedLockerIds.clear();
+        changedReservationIds.clear();
+    }
+
+    // Lockers saved before size classes get the sample layout by position
+    protected synchronized int assignMissingSizes() {
+        int position = 0, assigned = 0;
+        for (Map.Entry<String, Locker> e : lockers.entrySet()) {
+            Locker l = e.getValue();
+            if (l.getSize() == null) {
+                Locker sized = l.withSize(LockerSize.forPosition(position, lockers.size()));
+                e.setValue(sized);
+                freeze(sized);
+                assigned++;
+            }
+            position++;
+        }
+        if (assigned > 0) {
+            committed();
+            System.out.println("Assigned size classes to " + assigned + " locker(s) saved without one.");
+        }
+        return assigned;
+    }
+
+    // Called by loadReservations() for each stored reservation
+    protected void loaded(Reservation r) {
+        freeze(r);
+    }
+
+    @Override
+    public synchronized void saveAll() {
+        try {
+            writeLockers();
+            writeReservations();
+        } catch (IOException e) {
+            System.err.println("Error saving data: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized double getTotalRevenue() {
+    	return totalRevenue;
+    }
+
+    @Override
+    public synchronized void addRevenue(double amount) {
+    	revenue(totalRevenue + amount);
+    	committed();
+    }
+
+    // Replaces the running total
+    protected synchronized void setTotalRevenue(double total) {
+    	revenue(total);
+    	committed();
+    }
+
+    private void revenue(double total) {
+    	totalRevenue = total;
+    	version++;
+    	for (MutationListener ml : listeners) ml.revenueChanged(totalRevenue);
+    }
+
+    // Ends one operation for the listeners
+    private void committed() {
+        for (MutationListener ml : listeners) ml.committed();
+    }
+
+    // Returns the state the listener starts from; it then gets every later write
+    @Override
+    public synchronized DataSnapshot addListener(MutationListener listener) {
+        listeners.add(listener);
+        return snapshot();
+    }
+
+    @Override
+    public synchronized void removeListener(MutationListener listener) {
+        listeners.remove(listener);
+    }
+
+    //Snapshots
+    @Override
+    public synchronized DataSnapshot snapshot() {
+        if (snapshot == null || snapshot.getVersion() != version) {
+            snapshot = new DataSnapshot(version, frozenLockers.asMap(), frozenReservations.values(),
+                    activeByLocker.asMap(), totalRevenue);
+        }
+        return snapshot;
+    }
+
+    private void freeze(Locker l) {
+        Locker copy = l.copy();
+        Locker previous = frozenLockers.get(l.getId());
+        frozenLockers = frozenLockers.put(l.getId(), copy);
+        if (tracksChanges()) changedLockerIds.add(l.getId());
+        if (previous != null && previous.getSize() != null && previous.getSize() != copy.getSize()) {
+            freePools.get(previous.getSize()).remove(l.getId());
+        }
+        // Unsized lockers are kept out of allocation until assignMissingSizes()
+        if (copy.getSize() != null) {
+            Set<String> pool = freePools.get(copy.getSize());
+            if (copy.isAvailable() && !copy.isUnderMaintenance()) pool.add(l.getId());
+            else pool.remove(l.getId());
+        }
+        version++;
+        for (MutationListener ml : listeners) ml.lockerSaved(copy);
+    }
+
+    private void freeze(Reservation r) {
+        Reservation copy = r.copy();
+        index(copy);
+        frozenReservations = frozenReservations.put(r.getId(), copy);
+        if (tracksChanges()) changedReservationIds.add(r.getId());
+        version++;
+        for (MutationListener ml : listeners) ml.reservationSaved(copy);
+    }
+
+    private static boolean isActive(Reservation r) {
+        return !"PAID".equalsIgnoreCase(r.getPaymentStatus());
+    }
+
+    // Lists hold one entry unless double booked, so they are copied on write
+    private void index(Reservation r) {
+        String key = r.getLockerId().toUpperCase();
+        List<Reservation> before = activeFor(key);
+        List<Reservation> after = new ArrayList<>(before.size() + 1);
+        boolean found = false;
+        for (Reservation a : before) {
+            if (!a.getId().equals(r.getId())) {
+                after.add(a);
+            } else {
+                found = true;
+                if (isActive(r)) after.add(r);
+            }
+        }
+        if (!found && isActive(r)) after.add(r);
+        if (found || isActive(r)) activeByLocker = activeByLocker.put(key, Collections.unmodifiableList(after));
+    }
+
+    private List<Reservation> activeFor(String lockerId) {
+        List<Reservation> active = activeByLocker.get(lockerId.toUpperCase());
+        return active == null ? Collections.emptyList() : active;
+    }
+
+    // In ID order; later writes do not show up
+    @Override
+    public synchronized Collection<Reservation> getReservations() {
+        return frozenReservations.values();
+    }
+
+    @Override
+    public Map<String, Locker> getLockers() {
+        return lockers;
+    }
+
+    // Best fit; nothing is reserved, so callers allocate and save under one lock
+    @Override
+    public synchronized Optional<Locker> allocateLocker(LockerSize size) {
+        for (LockerSize s : LockerSize.values()) {
+            if (s.compareTo(size) < 0) continue;
+            Iterator<String> free = freePools.get(s).iterator();
+            if (free.hasNext()) return Optional.of(lockers.get(free.next()));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized Map<LockerSize, Integer> freeCounts() {
+        Map<LockerSize, Integer> counts = new EnumMap<>(LockerSize.class);
+        freePools.forEach((size, pool) -> counts.put(size, pool.size()));
+        return counts;
+    }
+
+    @Override
+    public synchronized Set<String> getActiveCodes() {
+        Set<String> codes = new HashSet<>();
+        for (List<Reservation> active : activeByLocker.values()) {
+            for (Reservation r : active) {
+                codes.add(r.getCode());
+            }
+        }
+        return codes;
+    }
+
+    @Override
+    public synchronized Optional<Reservation> findActiveByLockerAndCode(String lockerId, String code) {
+        return activeFor(lockerId).stream()
+                .filter(r -> r.getCode().equals(code))
+                .findFirst()
+                .map(Reservation::copy);
+    }
+
+    @Override
+    public synchronized Optional<Locker> findLocker(String id) {
+        return Optional.ofNullable(lockers.get(id));
+    }
+
+    @Override
+    public synchronized void saveReservationAndLocker(Reservation r, Locker l) {
+        if (frozenReservations.get(r.getId()) != null) {
+            throw new IllegalArgumentException("Reservation ID already exists: " + r.getId());
+        }
+        if (tracksChanges()) addedReservationIds.add(r.getId());
+        lockers.put(l.getId(), l);
+        freeze(r);
+        freeze(l);
+        committed();
+    }
+
+    @Override
+    public synchronized void upsertReservation(Reservation r) {
+        freeze(r);
+        committed();
+    }
+
+    @Override
+    public synchronized void completeReservation(Reservation r, Locker l) {
+        lockers.put(l.getId(), l);
+        freeze(r);
+        freeze(l);
+        if ("PAID".equalsIgnoreCase(r.getPaymentStatus())) {
+            revenue(totalRevenue + r.getAmount());
+        }
+        committed();
+    }
+
+    @Override
+    public synchronized Optional<Reservation> findLatestForLocker(String lockerId) {
+        return activeFor(lockerId).stream()
+                .max(Comparator.comparing(Reservation::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(Reservation::copy);
+    }
+
+    @Override
+    public synchronized void saveLocker(Locker l) {
+        lockers.put(l.getId(), l);
+        freeze(l);
+        committed();
+    }
+
+    //Batch admin operations: one lock, one lockers write per batch, all or nothing
+    @Override
+    public synchronized BatchResult markMaintenance(Collection<String> ids) {
+        BatchResult result = new BatchResult();
+        List<Locker> changed = new ArrayList<>();
+        for (String id : ids) {
+            Locker l = lockers.get(id);
+            if (l == null) {
+                result.notFound(id);
+            } else if (l.isUnderMaintenance()) {
+                result.skippedUnchanged(id);
+            } else if (!l.isAvailable()) {
+                result.skippedOccupied(id);
+            } else {
+                l.setUnderMaintenance(true);
+                changed.add(l);
+                result.applied(id);
+            }
+        }
+        return commitBatch(result, changed);
+    }
+
+    @Override
+    public synchronized BatchResult removeMaintenance(Collection<String> ids) {
+        BatchResult result = new BatchResult();
+        List<Locker> changed = new ArrayList<>();
+        for (String id : ids) {
+            Locker l = lockers.get(id);
+            if (l == null) {
+                result.notFound(id);
+            } else if (!l.isUnderMaintenance()) {
+                result.skippedUnchanged(id);
+            } else if (!activeFor(id).isEmpty()) {
+                // Still holds an unpaid bag (flagged through the single-locker path)
+                result.skippedOccupied(id);
+            } else {
+                l.setUnderMaintenance(false);
+                l.setAvailable(true);
+                changed.add(l);
+                result.applied(id);
+            }
+        }
+        return commitBatch(result, changed);
+    }
+
+    // Publishes only after the write; on failure the flags go back to the frozen copies
+    private BatchResult commitBatch(BatchResult result, List<Locker> changed) {
+        if (changed.isEmpty()) return result;
+        if (tracksChanges()) changed.forEach(l -> changedLockerIds.add(l.getId()));
+        try {
+            writeLockers();
+        } catch (IOException e) {
+            for (Locker l : changed) {
+                Locker before = frozenLockers.get(l.getId());
+                l.setAvailable(before.isAvailable());
+                l.setUnderMaintenance(before.isUnderMaintenance());
+            }
+            result.failed(e.getMessage());
+            return result;
+        }
+        changed.forEach(this::freeze);
+        committed();
+        return result;
+    }
+
+    // Unlocking does not change locker state; occupied lockers are left closed
+    @Override
+    public synchronized BatchResult unlockAll(Collection<String> ids) {
+        BatchResult result = new BatchResult();
+        for (String id : ids) {
+            Locker l = lockers.get(id);
+            if (l == null) {
+                result.notFound(id);
+            } else if (!l.isAvailable() && !l.isUnderMaintenance()) {
+                result.skippedOccupied(id);
+            } else {
+                result.applied(id);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchResult {
+	private final List<String> applied = new ArrayList<>();
+    private final List<String> skippedOccupied = new ArrayList<>();
+    private final List<String> skippedUnchanged = new ArrayList<>();
+    private final List<String> notFound = new ArrayList<>();
+    private final List<String> notSaved = new ArrayList<>();
+    private String error;
+
+    void applied(String id) {
+        applied.add(id);
+    }
+    void skippedOccupied(String id) {
+        skippedOccupied.add(id);
+    }
+    void skippedUnchanged(String id) {
+        skippedUnchanged.add(id);
+    }
+    void notFound(String id) {
+        notFound.add(id);
+    }
+    // The batch could not be written back and was undone; nothing counts as applied
+    void failed(String message) {
+        notSaved.addAll(applied);
+        applied.clear();
+        error = message;
+    }
+
+    public List<String> getApplied() {
+    	return Collections.unmodifiableList(applied);
+    }
+    public List<String> getSkippedOccupied() {
+    	return Collections.unmodifiableList(skippedOccupied);
+    }
+    // Lockers already in the requested state (e.g. not under maintenance when removing it)
+    public List<String> getSkippedUnchanged() {
+    	return Collections.unmodifiableList(skippedUnchanged);
+    }
+    public List<String> getNotFound() {
+    	return Collections.unmodifiableList(notFound);
+    }
+    public List<String> getNotSaved() {
+    	return Collections.unmodifiableList(notSaved);
+    }
+    // Null unless saving the batch failed
+    public String getError() {
+    	return error;
+    }
+}
@@ -0,0 +1,70 @@
+package repository;
+
+import model.Locker;
+import model.Reservation;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Cross-checks lockers against unpaid reservations. The check runs on a snapshot and reads
+// the repository's per-locker index of unpaid reservations, so paid history is never walked.
+public class ConsistencyChecker {
+
+    public static ConsistencyReport check(DataSnapshot view) {
+        Map<String, List<Reservation>> byLocker = view.getActiveByLocker();
+        Map<String, List<Reservation>> byCode = new HashMap<>();
+
+        ConsistencyReport report = new ConsistencyReport();
+        for (Locker l : view.getLockers().values()) {
+            if (l.isUnderMaintenance()) continue;
+            List<Reservation> inLocker = byLocker.getOrDefault(l.getId(), Collections.emptyList());
+            if (inLocker.isEmpty() && !l.isAvailable()) report.orphanedLocker(l.getId());
+            if (!inLocker.isEmpty() && l.isAvailable()) report.freeButReserved(l.getId());
+        }
+        byLocker.forEach((lockerId, list) -> {
+            if (list.isEmpty()) return;
+            if (list.size() > 1) report.doubleBooking(lockerId, ids(list));
+            if (!lockerId.matches("L\\d+") || !view.getLockers().containsKey(lockerId)) {
+                report.unknownLocker(lockerId, ids(list));
+            }
+            for (Reservation r : list) byCode.computeIfAbsent(r.getCode(), c -> new ArrayList<>()).add(r);
+        });
+        byCode.forEach((code, list) -> {
+            if (list.size() > 1) report.duplicateCode(code, ids(list));
+        });
+        return report.sorted();
+    }
+
+    // Fixes what can be fixed without a person looking inside the locker: orphaned
+    // lockers are freed and free lockers holding an unpaid reservation are marked
+    // occupied. Double bookings, duplicate codes and unknown lockers are left as
+    // reported. Each fix is re-checked against live state first. Returns the lockers changed.
+    public static List<String> repair(LockerRepository repo, ConsistencyReport report) {
+        List<String> repaired = new ArrayList<>();
+        synchronized (repo) {
+            for (String id : report.getOrphanedLockers()) {
+                Optional<Locker> ol = repo.findLocker(id);
+                if (ol.isPresent() && !ol.get().isAvailable() && !ol.get().isUnderMaintenance()
+                        && repo.findLatestForLocker(id).isEmpty()) {
+                    ol.get().setAvailable(true);
+                    repo.saveLocker(ol.get());
+                    repaired.add(id);
+                }
+            }
+            for (String id : report.getFreeButReserved()) {
+                Optional<Locker> ol = repo.findLocker(id);
+                if (ol.isPresent() && ol.get().isAvailable() && repo.findLatestForLocker(id).isPresent()) {
+                    ol.get().setAvailable(false);
+                    repo.saveLocker(ol.get());
+                    repaired.add(id);
+                }
+            }
+            if (!repaired.isEmpty()) repo.saveAll();
+        }
+        return repaired;
+    }
+
+    private static List<String> ids(List<Reservation> list) {
+        return list.stream().map(Reservation::getId).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,72 @@
+package repository;
+
+import java.util.*;
+
+public class ConsistencyReport {
+	private final List<String> orphanedLockers = new ArrayList<>();
+    private final List<String> freeButReserved = new ArrayList<>();
+    private final Map<String, List<String>> doubleBookings = new TreeMap<>();
+    private final Map<String, List<String>> duplicateCodes = new TreeMap<>();
+    private final Map<String, List<String>> unknownLockers = new TreeMap<>();
+
+    void orphanedLocker(String lockerId) {
+        orphanedLockers.add(lockerId);
+    }
+    void freeButReserved(String lockerId) {
+        freeButReserved.add(lockerId);
+    }
+    void doubleBooking(String lockerId, List<String> reservationIds) {
+        doubleBookings.put(lockerId, reservationIds);
+    }
+    void duplicateCode(String code, List<String> reservationIds) {
+        duplicateCodes.put(code, reservationIds);
+    }
+    void unknownLocker(String lockerId, List<String> reservationIds) {
+        unknownLockers.put(lockerId, reservationIds);
+    }
+
+    ConsistencyReport sorted() {
+        orphanedLockers.sort(null);
+        freeButReserved.sort(null);
+        return this;
+    }
+
+    // Unavailable, not under maintenance, and no unpaid reservation
+    public List<String> getOrphanedLockers() {
+    	return Collections.unmodifiableList(orphanedLockers);
+    }
+    // Marked available while an unpaid reservation still points at it
+    public List<String> getFreeButReserved() {
+    	return Collections.unmodifiableList(freeButReserved);
+    }
+    // Locker ID -> unpaid reservations sharing it
+    public Map<String, List<String>> getDoubleBookings() {
+    	return Collections.unmodifiableMap(doubleBookings);
+    }
+    // Code -> unpaid reservations sharing it
+    public Map<String, List<String>> getDuplicateCodes() {
+    	return Collections.unmodifiableMap(duplicateCodes);
+    }
+    // Locker ID that does not exist -> unpaid reservations pointing at it
+    public Map<String, List<String>> getUnknownLockers() {
+    	return Collections.unmodifiableMap(unknownLockers);
+    }
+
+    public boolean isClean() {
+        return orphanedLockers.isEmpty() && freeButReserved.isEmpty() && doubleBookings.isEmpty()
+                && duplicateCodes.isEmpty() && unknownLockers.isEmpty();
+    }
+
+    public String summary() {
+        if (isClean()) return "No inconsistencies found.";
+        StringBuilder sb = new StringBuilder();
+        if (!orphanedLockers.isEmpty())
+            sb.append("Orphaned lockers (occupied, no unpaid reservation): ").append(String.join(", ", orphanedLockers)).append('\n');
+        if (!freeButReserved.isEmpty())
+            sb.append("Available lockers with an unpaid reservation: ").append(String.join(", ", freeButReserved)).append('\n');
+        doubleBookings.forEach((id, res) -> sb.append("Double booking in ").append(id).append(": ").append(String.join(", ", res)).append('\n'));
+        duplicateCodes.forEach((code, res) -> sb.append("Duplicate active code ").append(code).append(": ").append(String.join(", ", res)).append('\n'));
+        unknownLockers.forEach((id, res) -> sb.append("Unknown locker ").append(id).append(": ").append(String.join(", ", res)).append('\n'));
+        return sb.toString().trim();
+    }
+}
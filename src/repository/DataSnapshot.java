@@ -0,0 +1,59 @@
+package repository;
+
+import model.Locker;
+import model.Reservation;
+
+import java.util.*;
+
+// Point-in-time, read-only view of a repository. It holds the roots of the repository's
+// persistent maps as of one version, so later writes never show up here and taking
+// a snapshot copies nothing.
+public class DataSnapshot {
+	private final long version;
+    private final Map<String, Locker> lockers;
+    private final Collection<Reservation> reservations;
+    private final Map<String, List<Reservation>> activeByLocker;
+    private final double totalRevenue;
+
+    DataSnapshot(long version, Map<String, Locker> lockers, Collection<Reservation> reservations,
+                 Map<String, List<Reservation>> activeByLocker, double totalRevenue) {
+        this.version = version;
+        this.lockers = lockers;
+        this.reservations = reservations;
+        this.activeByLocker = activeByLocker;
+        this.totalRevenue = totalRevenue;
+    }
+
+    // Write count of the store when this snapshot was taken
+    public long getVersion() {
+    	return version;
+    }
+
+    public Map<String, Locker> getLockers() {
+    	return lockers;
+    }
+
+    // In reservation ID order
+    public Collection<Reservation> getReservations() {
+    	return reservations;
+    }
+
+    // Unpaid reservations per upper-case locker ID, as the repository indexes them. A locker
+    // whose reservations have all been paid may still map to an empty list.
+    public Map<String, List<Reservation>> getActiveByLocker() {
+    	return activeByLocker;
+    }
+
+    public double getTotalRevenue() {
+    	return totalRevenue;
+    }
+
+    public Optional<Locker> findLocker(String id) {
+        return Optional.ofNullable(lockers.get(id));
+    }
+
+    public Optional<Reservation> findLatestForLocker(String lockerId) {
+        return activeByLocker.getOrDefault(lockerId.toUpperCase(), Collections.emptyList()).stream()
+                .max(Comparator.comparing(Reservation::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+    }
+}
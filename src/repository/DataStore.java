@@ -6,17 +6,12 @@ import java.io.*;
 import java.time.LocalDateTime;
 import java.util.*;
 
-public class DataStore {
+// Text-file storage: lockers.txt and reservations.txt in the given folder
+public class DataStore extends AbstractLockerRepository {
 	private final String folder;
     private final File lockersFile;
     private final File reservationsFile;
 
-    private final Map<String, Locker> lockers = new TreeMap<>(Comparator.comparingInt(
-    	id -> Integer.parseInt(id.substring(1))  
-    ));
-    private final Map<String, Reservation> reservations = new HashMap<>();
-    private double totalRevenue = 0.0;
-
     public DataStore(String folder) {
     	this.folder = folder;
         this.lockersFile = new File(folder, "lockers.txt");
@@ -33,29 +28,23 @@ public class DataStore {
     public String getFolderPath() {
         return folder;
     }
-    
-    public double getTotalRevenue() { 
-    	return totalRevenue; 
-    } 
-    
-    public void addRevenue(double amount) { 
-    	totalRevenue += amount; 
-    }
 
     //Lockers
-    private void loadLockers() throws IOException {
+    @Override
+    protected void loadLockers() throws IOException {
         if (!lockersFile.exists()) return;
 
         Scanner input = new Scanner(new FileReader(lockersFile));
         String id = null;
         Boolean available = null;
         Boolean underMaintenance = null;
+        LockerSize size = null;   // files from before size classes; sized by loadAll()
 
         while (input.hasNextLine()) {
             String line = input.nextLine().trim();
             if (line.isEmpty()) {
                 if (id != null) {
-                	Locker locker = new Locker(id, available != null && available);
+                	Locker locker = new Locker(id, available != null && available, size);
                     if (underMaintenance != null) {
                         locker.setUnderMaintenance(underMaintenance);
                     }
@@ -63,6 +52,7 @@ public class DataStore {
                     id = null;
                     available = null;
                     underMaintenance = null;
+                    size = null;
                 }
                 continue;
             }
@@ -73,11 +63,13 @@ public class DataStore {
                 available = Boolean.parseBoolean(line.substring("Available:".length()).trim());
             } else if (line.startsWith("UnderMaintenance:")) {
                 underMaintenance = Boolean.parseBoolean(line.substring("UnderMaintenance:".length()).trim());
+            } else if (line.startsWith("Size:")) {
+                size = LockerSize.parse(line.substring("Size:".length()));
             }
         }
 
         if (id != null) {
-        	Locker locker = new Locker(id, available != null && available);
+        	Locker locker = new Locker(id, available != null && available, size);
             if (underMaintenance != null) {
                 locker.setUnderMaintenance(underMaintenance);
             }
@@ -87,19 +79,22 @@ public class DataStore {
         input.close();
     }
 
-    private void saveLockers() throws IOException {
+    @Override
+    protected void saveLockers() throws IOException {
     	try (PrintWriter out = new PrintWriter(new FileWriter(lockersFile))){
     		for (Locker l : lockers.values()) {
                 out.println("Locker: " + l.getId());
                 out.println("Available: " + l.isAvailable());
                 out.println("UnderMaintenance: " + l.isUnderMaintenance());
+                out.println("Size: " + l.getSize());
                 out.println();
             }
     	}
     }
     
     //Reservations
-    private void loadReservations() throws IOException {
+    @Override
+    protected void loadReservations() throws IOException {
         if (!reservationsFile.exists()) return;
 
         Scanner input = new Scanner(new FileReader(reservationsFile));
@@ -130,9 +125,10 @@ public class DataStore {
         input.close();
     }
 
-    private void saveReservations() throws IOException {
+    @Override
+    protected void saveReservations() throws IOException {
         PrintWriter out = new PrintWriter(new FileWriter(reservationsFile));
-        for (Reservation r : reservations.values()) {
+        for (Reservation r : getReservations()) {
             out.println("ID: " + r.getId());
             out.println("Phone: " + r.getPhone());
             out.println("Locker: " + r.getLockerId());
@@ -158,19 +154,7 @@ public class DataStore {
         String serviceType = fields.get("Service");
         double fee = Double.parseDouble(fields.getOrDefault("Fee", "0"));
         
-        Service service;
-
-        // Decide which concrete service to use
-        switch (serviceType.toUpperCase().replace(" ", "_")) {
-            case "DRY_CLEANING":
-                service = new DryCleaningService(fee);
-                break;
-            case "WASH_AND_FOLD":
-                service = new WashAndFoldService(fee);
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown service type: " + serviceType);
-        }
+        Service service = Service.of(serviceType, fee);
 
         Reservation r = Reservation.newPending(id, phone, lockerId, code, service);
 
@@ -184,93 +168,6 @@ public class DataStore {
         r.setPaymentStatus(fields.getOrDefault("Payment", "UNPAID"));
         r.setAmount(Double.parseDouble(fields.getOrDefault("Amount", "0.00")));
 
-        reservations.put(r.getId(), r);
-    }
-
-    public void saveAll() {
-        try {
-            saveLockers();
-            saveReservations();
-        } catch (IOException e) {
-            System.err.println("Error saving data: " + e.getMessage());
-        }
-    }
-
-    public Collection<Reservation> getReservations() {
-        return reservations.values();
-    }
-    
-    public void loadAll() throws IOException {
-        loadLockers();
-        //Initialize sample lockers
-        if (lockers.isEmpty()) {
-            for (int i = 1; i <= 20; i++) {
-                String id = "L" + String.format("%03d", i);
-                lockers.put(id, new Locker(id, true));
-            }
-            saveLockers();
-        }
-        
-        loadReservations();
-    }
-    
-    public Optional<Locker> findFirstAvailableLocker() {
-        return lockers.values().stream()
-                .filter(l -> l.isAvailable() && !l.isUnderMaintenance())
-                .findFirst();
-    }
-
-    public Set<String> getActiveCodes() {
-        Set<String> codes = new HashSet<>();
-        for (Reservation r : reservations.values()) {
-            if (!"PAID".equalsIgnoreCase(r.getPaymentStatus())) {
-                codes.add(r.getCode());
-            }
-        }
-        return codes;
-    }
-
-    public Optional<Reservation> findActiveByLockerAndCode(String lockerId, String code) {
-        return reservations.values().stream()
-                .filter(r -> r.getLockerId().equalsIgnoreCase(lockerId)
-                        && r.getCode().equals(code)
-                        && !"PAID".equalsIgnoreCase(r.getPaymentStatus()))
-                .findFirst();
-    }
-
-    public Optional<Locker> findLocker(String id) {
-        return Optional.ofNullable(lockers.get(id));
-    }
-
-    public void saveReservationAndLocker(Reservation r, Locker l) {
-        reservations.put(r.getId(), r);
-        lockers.put(l.getId(), l);
-    }
-
-    public void upsertReservation(Reservation r) {
-        reservations.put(r.getId(), r);
-    }
-
-    public void completeReservation(Reservation r, Locker l) {
-        reservations.put(r.getId(), r);
-        lockers.put(l.getId(), l);
-        if ("PAID".equalsIgnoreCase(r.getPaymentStatus())) {
-            addRevenue(r.getAmount());
-        }
-    }
-
-    public Optional<Reservation> findLatestForLocker(String lockerId) {
-        return reservations.values().stream()
-                .filter(r -> r.getLockerId().equalsIgnoreCase(lockerId))
-                .filter(r -> !"PAID".equalsIgnoreCase(r.getPaymentStatus()))
-                .max(Comparator.comparing(Reservation::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
-    }
-
-    public void saveLocker(Locker l) {
-        lockers.put(l.getId(), l);
-    }
-
-    public Map<String, Locker> getLockers() {
-        return lockers;
+        loaded(r);
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package repository;
+
+import java.io.IOException;
+
+// Keeps everything in memory only; starts with the 20 sample lockers and saves nothing
+public class InMemoryRepository extends AbstractLockerRepository {
+
+    public InMemoryRepository() {
+        try {
+            loadAll();
+        } catch (IOException e) {
+            System.err.println("Error loading data: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected void loadLockers() {
+    }
+
+    @Override
+    protected void loadReservations() {
+    }
+
+    @Override
+    protected void saveLockers() {
+    }
+
+    @Override
+    protected void saveReservations() {
+    }
+}
@@ -0,0 +1,238 @@
+package repository;
+
+import model.*;
+
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Embedded-database storage over plain JDBC, e.g. jdbc:h2:file:./data/locker or
+// jdbc:sqlite:data/locker.db. The driver jar only has to be on the runtime classpath.
+// Like the text store, state lives in memory; unlike it, a save writes back only the rows
+// changed since the last one, so its cost follows the activity, not the history.
+public class JdbcRepository extends AbstractLockerRepository {
+	private final String url;
+    private final String user;
+    private final String password;
+    private Connection connection;
+
+    // Throws IllegalStateException when the database cannot be opened or read (no driver,
+    // bad URL): an empty store would look like a kiosk with no lockers and fail every save
+    public JdbcRepository(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        try {
+            createTables();
+            loadAll();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open database " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected boolean tracksChanges() {
+        return true;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    // One connection for the life of the store, used under the store lock. Reopening an
+    // embedded database for every save costs more than the save itself.
+    private Connection connect() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DriverManager.getConnection(url, user, password);
+        }
+        return connection;
+    }
+
+    // Only portable SQL, so the same statements work on H2, SQLite and Derby-like engines
+    private void createTables() throws IOException {
+        try (Statement st = connect().createStatement()) {
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS lockers ("
+                    + "id VARCHAR(16) PRIMARY KEY, available BOOLEAN NOT NULL, "
+                    + "under_maintenance BOOLEAN NOT NULL, size VARCHAR(8))");
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS reservations ("
+                    + "id VARCHAR(32) PRIMARY KEY, phone VARCHAR(16), locker_id VARCHAR(16), "
+                    + "code VARCHAR(6), service VARCHAR(32), fee DOUBLE, created_at VARCHAR(32), "
+                    + "dropoff_at VARCHAR(32), pickup_at VARCHAR(32), payment VARCHAR(8), amount DOUBLE)");
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS totals (name VARCHAR(32) PRIMARY KEY, amount DOUBLE)");
+            // Databases created before size classes lack the column
+            try (ResultSet rs = st.executeQuery("SELECT size FROM lockers WHERE 1 = 0")) {
+                rs.next();
+            } catch (SQLException e) {
+                st.executeUpdate("ALTER TABLE lockers ADD COLUMN size VARCHAR(8)");
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    //Lockers
+    @Override
+    protected void loadLockers() throws IOException {
+        try (Statement st = connect().createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, available, under_maintenance, size FROM lockers")) {
+            while (rs.next()) {
+                String size = rs.getString(4);
+                Locker locker = new Locker(rs.getString(1), rs.getBoolean(2),
+                        size == null ? null : LockerSize.parse(size));
+                locker.setUnderMaintenance(rs.getBoolean(3));
+                lockers.put(locker.getId(), locker);
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    // Only lockers written since the last save: update the row, insert it if it is new
+    @Override
+    protected void saveLockers() throws IOException {
+        try {
+            Connection c = connect();
+            c.setAutoCommit(false);
+            try (PreparedStatement update = c.prepareStatement(
+                         "UPDATE lockers SET available = ?, under_maintenance = ?, size = ? WHERE id = ?");
+                 PreparedStatement insert = c.prepareStatement(
+                         "INSERT INTO lockers (available, under_maintenance, size, id) VALUES (?, ?, ?, ?)")) {
+                upsert(update, insert, changedLockers(), JdbcRepository::bind);
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private interface Binder<T> {
+        PreparedStatement bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    // Updates every row in one batch, then inserts in a second batch the rows no update
+    // matched. Drivers that do not report per-row counts get each row retried on its own.
+    private static <T> void upsert(PreparedStatement update, PreparedStatement insert, Collection<T> rows,
+                                   Binder<T> binder) throws SQLException {
+        if (rows.isEmpty()) return;
+        for (T row : rows) binder.bind(update, row).addBatch();
+        int[] counts = update.executeBatch();
+        int i = 0;
+        boolean inserts = false;
+        for (T row : rows) {
+            int count = counts[i++];
+            if (count == Statement.SUCCESS_NO_INFO) count = binder.bind(update, row).executeUpdate();
+            if (count == 0) {
+                binder.bind(insert, row).addBatch();
+                inserts = true;
+            }
+        }
+        if (inserts) insert.executeBatch();
+    }
+
+    private static PreparedStatement bind(PreparedStatement ps, Locker l) throws SQLException {
+        ps.setBoolean(1, l.isAvailable());
+        ps.setBoolean(2, l.isUnderMaintenance());
+        ps.setString(3, l.getSize().name());
+        ps.setString(4, l.getId());
+        return ps;
+    }
+
+    //Reservations
+    @Override
+    protected void loadReservations() throws IOException {
+        try (Statement st = connect().createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT id, phone, locker_id, code, service, fee, "
+                    + "created_at, dropoff_at, pickup_at, payment, amount FROM reservations")) {
+                while (rs.next()) {
+                    Service service = Service.of(rs.getString(5), rs.getDouble(6));
+                    Reservation r = Reservation.newPending(rs.getString(1), rs.getString(2),
+                            rs.getString(3), rs.getString(4), service);
+                    r.setCreatedAt(parseTime(rs.getString(7)));
+                    r.setDropoffAt(parseTime(rs.getString(8)));
+                    r.setPickupAt(parseTime(rs.getString(9)));
+                    r.setPaymentStatus(rs.getString(10));
+                    r.setAmount(rs.getDouble(11));
+                    loaded(r);
+                }
+            }
+            try (ResultSet rs = st.executeQuery("SELECT amount FROM totals WHERE name = 'TOTAL_REVENUE'")) {
+                if (rs.next()) totalRevenue = rs.getDouble(1);
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void saveReservations() throws IOException {
+        try {
+            Connection c = connect();
+            c.setAutoCommit(false);
+            try (PreparedStatement update = c.prepareStatement("UPDATE reservations SET phone = ?, "
+                         + "locker_id = ?, code = ?, service = ?, fee = ?, created_at = ?, dropoff_at = ?, "
+                         + "pickup_at = ?, payment = ?, amount = ? WHERE id = ?");
+                 PreparedStatement insert = c.prepareStatement("INSERT INTO reservations (phone, locker_id, "
+                         + "code, service, fee, created_at, dropoff_at, pickup_at, payment, amount, id) "
+                         + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                 PreparedStatement updateTotal = c.prepareStatement(
+                         "UPDATE totals SET amount = ? WHERE name = 'TOTAL_REVENUE'");
+                 PreparedStatement insertTotal = c.prepareStatement(
+                         "INSERT INTO totals (amount, name) VALUES (?, 'TOTAL_REVENUE')")) {
+                // New reservations are inserted outright: an ID another kiosk already
+                // stored fails the save instead of overwriting that kiosk's row
+                List<Reservation> updated = new ArrayList<>();
+                boolean inserts = false;
+                for (Reservation r : changedReservations()) {
+                    if (isAdded(r.getId())) {
+                        bind(insert, r).addBatch();
+                        inserts = true;
+                    } else {
+                        updated.add(r);
+                    }
+                }
+                if (inserts) insert.executeBatch();
+                upsert(update, insert, updated, JdbcRepository::bind);
+                updateTotal.setDouble(1, totalRevenue);
+                if (updateTotal.executeUpdate() == 0) {
+                    insertTotal.setDouble(1, totalRevenue);
+                    insertTotal.executeUpdate();
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static PreparedStatement bind(PreparedStatement ps, Reservation r) throws SQLException {
+        ps.setString(1, r.getPhone());
+        ps.setString(2, r.getLockerId());
+        ps.setString(3, r.getCode());
+        ps.setString(4, r.getServiceType());
+        ps.setDouble(5, r.getServiceFee());
+        ps.setString(6, formatTime(r.getCreatedAt()));
+        ps.setString(7, formatTime(r.getDropoffAt()));
+        ps.setString(8, formatTime(r.getPickupAt()));
+        ps.setString(9, r.getPaymentStatus());
+        ps.setDouble(10, r.getAmount());
+        ps.setString(11, r.getId());
+        return ps;
+    }
+
+    private static String formatTime(LocalDateTime t) {
+        return t == null ? null : t.toString();
+    }
+
+    private static LocalDateTime parseTime(String s) {
+        return s == null || s.isEmpty() ? null : LocalDateTime.parse(s);
+    }
+}
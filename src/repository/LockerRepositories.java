@@ -0,0 +1,28 @@
+package repository;
+
+import java.util.Properties;
+
+public class LockerRepositories {
+	// storage = text (default) | memory | jdbc
+    //   storage.folder        text store folder (default "data")
+    //   storage.jdbc.url      e.g. jdbc:h2:file:./data/locker
+    //   storage.jdbc.user / storage.jdbc.password
+    public static LockerRepository open(Properties config) {
+        String kind = config.getProperty("storage", "text").trim().toLowerCase();
+        switch (kind) {
+            case "text":
+                return new DataStore(config.getProperty("storage.folder", "data"));
+            case "memory":
+                return new InMemoryRepository();
+            case "jdbc":
+                String url = config.getProperty("storage.jdbc.url");
+                if (url == null || url.isBlank()) {
+                    throw new IllegalArgumentException("storage.jdbc.url is required for jdbc storage");
+                }
+                return new JdbcRepository(url, config.getProperty("storage.jdbc.user", ""),
+                        config.getProperty("storage.jdbc.password", ""));
+            default:
+                throw new IllegalArgumentException("Unknown storage type: " + kind);
+        }
+    }
+}
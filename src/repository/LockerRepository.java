@@ -0,0 +1,44 @@
+package repository;
+
+import model.Locker;
+import model.LockerSize;
+import model.Reservation;
+
+import java.io.IOException;
+import java.util.*;
+
+// Storage for lockers, reservations and revenue. Pick an implementation with
+// LockerRepositories.open(config): in-memory, text files (DataStore) or JDBC.
+public interface LockerRepository {
+	void loadAll() throws IOException;
+    void saveAll();
+
+    double getTotalRevenue();
+    void addRevenue(double amount);
+
+    DataSnapshot snapshot();
+    DataSnapshot addListener(MutationListener listener);
+    void removeListener(MutationListener listener);
+
+    // Reservations as of the call, unchanged by later writes; lockers as a live view, to be
+    // iterated only from the writing thread (use snapshot() elsewhere)
+    Collection<Reservation> getReservations();
+    Map<String, Locker> getLockers();
+
+    Optional<Locker> findLocker(String id);
+    // A free locker of at least the given size, preferring the smallest that fits
+    Optional<Locker> allocateLocker(LockerSize size);
+    Map<LockerSize, Integer> freeCounts();
+    Set<String> getActiveCodes();
+    Optional<Reservation> findActiveByLockerAndCode(String lockerId, String code);
+    Optional<Reservation> findLatestForLocker(String lockerId);
+
+    void saveLocker(Locker l);
+    void saveReservationAndLocker(Reservation r, Locker l);
+    void upsertReservation(Reservation r);
+    void completeReservation(Reservation r, Locker l);
+
+    BatchResult markMaintenance(Collection<String> ids);
+    BatchResult removeMaintenance(Collection<String> ids);
+    BatchResult unlockAll(Collection<String> ids);
+}
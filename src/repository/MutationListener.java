@@ -0,0 +1,16 @@
+package repository;
+
+import model.Locker;
+import model.Reservation;
+
+// Told about every write in commit order, while the repository lock is held, so
+// implementations must be quick and must not call back into the repository.
+// The entities passed in are detached copies.
+public interface MutationListener {
+	void lockerSaved(Locker l);
+    void reservationSaved(Reservation r);
+    void revenueChanged(double totalRevenue);
+    // After the last change of one repository operation, e.g. a pickup's reservation,
+    // locker and revenue
+    void committed();
+}
@@ -0,0 +1,180 @@
+package repository;
+
+import java.util.*;
+
+// Immutable AVL map; put() shares all nodes off the changed path. No remove: nothing is deleted
+final class PersistentMap<K, V> {
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int height;
+        final int size;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    private final Comparator<? super K> order;
+    private final Node<K, V> root;
+
+    private PersistentMap(Comparator<? super K> order, Node<K, V> root) {
+        this.order = order;
+        this.root = root;
+    }
+
+    static <K, V> PersistentMap<K, V> empty(Comparator<? super K> order) {
+        return new PersistentMap<>(order, null);
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        Node<K, V> n = root;
+        while (n != null) {
+            int c = order.compare((K) key, n.key);
+            if (c == 0) return n.value;
+            n = c < 0 ? n.left : n.right;
+        }
+        return null;
+    }
+
+    PersistentMap<K, V> put(K key, V value) {
+        return new PersistentMap<>(order, put(root, key, value));
+    }
+
+    // Read-only views in key order
+    Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                Iterator<Node<K, V>> nodes = nodes();
+                return new Iterator<V>() {
+                    public boolean hasNext() {
+                        return nodes.hasNext();
+                    }
+                    public V next() {
+                        return nodes.next().value;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return PersistentMap.this.size();
+            }
+        };
+    }
+
+    Map<K, V> asMap() {
+        Set<Map.Entry<K, V>> entries = new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                Iterator<Node<K, V>> nodes = nodes();
+                return new Iterator<Map.Entry<K, V>>() {
+                    public boolean hasNext() {
+                        return nodes.hasNext();
+                    }
+                    public Map.Entry<K, V> next() {
+                        Node<K, V> n = nodes.next();
+                        return new AbstractMap.SimpleImmutableEntry<>(n.key, n.value);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return PersistentMap.this.size();
+            }
+        };
+        Collection<V> values = values();
+        return new AbstractMap<K, V>() {
+            @Override
+            public Set<Map.Entry<K, V>> entrySet() {
+                return entries;
+            }
+
+            @Override
+            public Collection<V> values() {
+                return values;
+            }
+
+            @Override
+            public V get(Object key) {
+                return PersistentMap.this.get(key);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return PersistentMap.this.get(key) != null;
+            }
+
+            @Override
+            public int size() {
+                return PersistentMap.this.size();
+            }
+        };
+    }
+
+    // In-order walk with an explicit stack of left spines
+    private Iterator<Node<K, V>> nodes() {
+        Deque<Node<K, V>> stack = new ArrayDeque<>();
+        for (Node<K, V> n = root; n != null; n = n.left) stack.push(n);
+        return new Iterator<Node<K, V>>() {
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+            public Node<K, V> next() {
+                if (stack.isEmpty()) throw new NoSuchElementException();
+                Node<K, V> n = stack.pop();
+                for (Node<K, V> c = n.right; c != null; c = c.left) stack.push(c);
+                return n;
+            }
+        };
+    }
+
+    private Node<K, V> put(Node<K, V> n, K key, V value) {
+        if (n == null) return new Node<>(key, value, null, null);
+        int c = order.compare(key, n.key);
+        if (c == 0) return new Node<>(n.key, value, n.left, n.right);
+        if (c < 0) return balance(n.key, n.value, put(n.left, key, value), n.right);
+        return balance(n.key, n.value, n.left, put(n.right, key, value));
+    }
+
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> l, Node<K, V> r) {
+        if (height(l) > height(r) + 1) {
+            if (height(l.left) >= height(l.right)) {
+                return new Node<>(l.key, l.value, l.left, new Node<>(key, value, l.right, r));
+            }
+            return new Node<>(l.right.key, l.right.value, new Node<>(l.key, l.value, l.left, l.right.left),
+                    new Node<>(key, value, l.right.right, r));
+        }
+        if (height(r) > height(l) + 1) {
+            if (height(r.right) >= height(r.left)) {
+                return new Node<>(r.key, r.value, new Node<>(key, value, l, r.left), r.right);
+            }
+            return new Node<>(r.left.key, r.left.value, new Node<>(key, value, l, r.left.left),
+                    new Node<>(r.key, r.value, r.left.right, r.right));
+        }
+        return new Node<>(key, value, l, r);
+    }
+
+    private static int height(Node<?, ?> n) {
+        return n == null ? 0 : n.height;
+    }
+
+    private static int size(Node<?, ?> n) {
+        return n == null ? 0 : n.size;
+    }
+}
@@ -2,10 +2,15 @@ package util;
 
 import java.util.Random;
 import java.util.Set;
-import java.util.UUID;
 
 public class CodeGenerator {
 	private static final Random RND = new Random();
+    private static volatile IdGenerator ids = new IdGenerator(0);
+
+    // Kiosks that share a store need different nodes (locker.node), set before any drop-off
+    public static void setNode(int node) {
+        ids = new IdGenerator(node);
+    }
 
     public static String unique6Digits(Set<String> existing) {
         for (int i = 0; i < 1000; i++) {
@@ -16,6 +21,7 @@ public class CodeGenerator {
     }
 
     public static String reservationId() {
-        return "R-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        // Fixed-width hex so string order matches creation order
+        return String.format("R-%016X", ids.nextId());
     }
 }
\ No newline at end of file
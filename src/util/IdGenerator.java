@@ -0,0 +1,59 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Snowflake-style 64-bit IDs: 41 bits of milliseconds since EPOCH, 10 bits of node ID
+// and a 12-bit per-millisecond sequence. IDs from one node are unique and increase with
+// creation time, so they can also be sorted or range-scanned as a time index.
+public class IdGenerator {
+	public static final long EPOCH = 1735689600000L; // 2025-01-01T00:00:00Z
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIME_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    private final long node;
+    // (millis since EPOCH << SEQUENCE_BITS) | sequence of the last ID handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public IdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE + ": " + node);
+        }
+        this.node = node;
+    }
+
+    public long nextId() {
+        while (true) {
+            long prev = last.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            long prevMillis = prev >>> SEQUENCE_BITS;
+            long next;
+            if (now > prevMillis) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // Same millisecond (or clock stepped back): keep counting from the last
+                // timestamp; when the sequence overflows this borrows the next millisecond.
+                next = prev + 1;
+            }
+            if (last.compareAndSet(prev, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << TIME_SHIFT) | (node << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public int getNode() {
+        return (int) node;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> TIME_SHIFT) + EPOCH;
+    }
+
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE);
+    }
+}
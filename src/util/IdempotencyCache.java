@@ -0,0 +1,105 @@
+package util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+// Replays the first result of each keyed request. Bounded by size and TTL, oldest first;
+// running calls are never evicted, or a retry would run the work twice.
+public class IdempotencyCache<V> {
+	private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, Entry<V>> entries = new LinkedHashMap<>();
+
+    private static class Entry<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final String fingerprint;
+        final long expiresAt;
+
+        Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public IdempotencyCache(int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    // Runs work once per live key; duplicates wait for it and must match fingerprint.
+    // Nothing is cached when work throws.
+    public V execute(String key, String fingerprint, Supplier<V> work) {
+        Entry<V> entry;
+        boolean owner = false;
+        synchronized (this) {
+            long now = System.nanoTime();
+            evictExpired(now);
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry<>(fingerprint, now + ttlNanos);
+                entries.put(key, entry);
+                owner = true;
+                if (entries.size() > maxEntries) evictOldestDone();
+            } else if (!Objects.equals(entry.fingerprint, fingerprint)) {
+                throw new IllegalArgumentException("Idempotency key " + key + " was already used for a different request");
+            }
+        }
+
+        if (owner) {
+            try {
+                V value = work.get();
+                entry.result.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    entries.remove(key, entry);
+                }
+                entry.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return entry.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for request " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException("Request " + key + " failed", cause);
+        }
+    }
+
+    public synchronized int size() {
+        evictExpired(System.nanoTime());
+        return entries.size();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry<V> e = it.next();
+            if (e.expiresAt - now > 0) break;
+            if (e.result.isDone()) it.remove();
+        }
+    }
+
+    // Overshoots only by the calls in flight
+    private void evictOldestDone() {
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().result.isDone()) {
+                it.remove();
+                return;
+            }
+        }
+    }
+}
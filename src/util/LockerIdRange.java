@@ -0,0 +1,36 @@
+package util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class LockerIdRange {
+	// Parses "L001-L020, L025, L030-L032" into the listed locker IDs, in order, without duplicates
+    public static Set<String> parse(String spec) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String part : spec.toUpperCase().split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) continue;
+
+            String[] ends = part.split("-", 2);
+            int from = number(ends[0].trim());
+            int to = ends.length == 2 ? number(ends[1].trim()) : from;
+            if (to < from) {
+                throw new IllegalArgumentException("Range is reversed: " + part);
+            }
+            for (int i = from; i <= to; i++) {
+                ids.add("L" + String.format("%03d", i));
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("No locker IDs given");
+        }
+        return ids;
+    }
+
+    private static int number(String id) {
+        if (!id.matches("L\\d{3}")) {
+            throw new IllegalArgumentException("Invalid locker ID: " + id);
+        }
+        return Integer.parseInt(id.substring(1));
+    }
+}
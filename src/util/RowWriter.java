@@ -0,0 +1,117 @@
+package util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Fixed-width text rows for long listings. Cells are written as ASCII straight into one
+// reusable byte buffer, and the buffer goes to the stream only when it fills up or on
+// flush(). A row allocates nothing, and a listing costs one write per block, not per row.
+// One writer can serve many listings: target() points it at the next stream.
+// Padding matches printf: %-Ns for text(s, N), %Nd for number(v, N), %N.2f for money(v, N).
+public class RowWriter {
+	private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private OutputStream out;
+    private final byte[] buf;
+    private final byte[] digits = new byte[24];   // sign and up to 19 digits of a long, plus '.'
+    private int pos;
+
+    public RowWriter(OutputStream out) {
+        this(out, DEFAULT_CAPACITY);
+    }
+
+    public RowWriter(OutputStream out, int capacity) {
+        if (capacity < 64) throw new IllegalArgumentException("Buffer too small: " + capacity);
+        this.out = out;
+        this.buf = new byte[capacity];
+    }
+
+    // Sends later rows to another stream. Anything not yet flushed is dropped, so a listing
+    // that failed halfway never leaks into the next one.
+    public RowWriter target(OutputStream out) {
+        this.out = out;
+        pos = 0;
+        return this;
+    }
+
+    public RowWriter text(String s) throws IOException {
+        return text(s, 0);
+    }
+
+    // Left-aligned and padded with spaces; longer text is written whole, null as "null".
+    // Characters outside ASCII become '?'.
+    public RowWriter text(String s, int width) throws IOException {
+        if (s == null) s = "null";
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            put(c < 128 ? (byte) c : (byte) '?');
+        }
+        return pad(width - len);
+    }
+
+    // Right-aligned whole number
+    public RowWriter number(long v, int width) throws IOException {
+        int start = digits.length;
+        long rest = v;
+        do {
+            digits[--start] = (byte) ('0' + Math.abs(rest % 10));
+            rest /= 10;
+        } while (rest != 0);
+        if (v < 0) digits[--start] = '-';
+        return right(start, width);
+    }
+
+    // Right-aligned with two decimals, rounded half up on the decimal value as printf does:
+    // 1.005 is stored as 1.00499..., but it is the double nearest 1.005, so it rounds up
+    public RowWriter money(double v, int width) throws IOException {
+        double abs = Math.abs(v);
+        long cents = (long) Math.floor(abs * 100);
+        if (abs >= (cents + 0.5) / 100) cents++;
+        int start = digits.length;
+        digits[--start] = (byte) ('0' + cents % 10);
+        digits[--start] = (byte) ('0' + cents / 10 % 10);
+        digits[--start] = '.';
+        long whole = cents / 100;
+        do {
+            digits[--start] = (byte) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole != 0);
+        if (v < 0) digits[--start] = '-';
+        return right(start, width);
+    }
+
+    public RowWriter newline() throws IOException {
+        for (byte b : NEWLINE) put(b);
+        return this;
+    }
+
+    // Writes out what is buffered and flushes the stream; the stream stays open
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    private RowWriter right(int start, int width) throws IOException {
+        pad(width - (digits.length - start));
+        for (int i = start; i < digits.length; i++) put(digits[i]);
+        return this;
+    }
+
+    private RowWriter pad(int n) throws IOException {
+        for (int i = 0; i < n; i++) put((byte) ' ');
+        return this;
+    }
+
+    private void put(byte b) throws IOException {
+        if (pos == buf.length) drain();
+        buf[pos++] = b;
+    }
+
+    private void drain() throws IOException {
+        if (pos > 0) out.write(buf, 0, pos);
+        pos = 0;
+    }
+}